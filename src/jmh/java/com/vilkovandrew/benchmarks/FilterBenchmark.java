@@ -0,0 +1,194 @@
+package com.vilkovandrew.benchmarks;
+
+import com.vilkovandrew.yandex.market.helpers.CheckBoxFilter;
+import com.vilkovandrew.yandex.market.helpers.CompiledFilters;
+import com.vilkovandrew.yandex.market.helpers.Filter;
+import com.vilkovandrew.yandex.market.helpers.FilterCompiler;
+import com.vilkovandrew.yandex.market.helpers.Product;
+import com.vilkovandrew.yandex.market.helpers.ProductBatch;
+import com.vilkovandrew.yandex.market.helpers.RangeFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки проверки товаров фильтрами: {@link RangeFilter#isMatches(Product)},
+ * {@link CheckBoxFilter#isMatches(Product)} и {@link CompiledFilters} на колоночной пачке.
+ * <p>
+ * Фильтры соответствуют тестовым данным: цена от 10000 до 900000 и производители HP и Lenovo.
+ * Каждый вызов обрабатывает весь список из {@code size} товаров.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class FilterBenchmark {
+    /**
+     * Количество товаров
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    @Param({"100", "10000", "1000000"})
+    public int size;
+
+    /**
+     * Товары
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private List<Product> products;
+
+    /**
+     * Фильтр цены
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private RangeFilter rangeFilter;
+
+    /**
+     * Фильтр производителя
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private CheckBoxFilter checkBoxFilter;
+
+    /**
+     * Скомпилированные фильтры
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private CompiledFilters compiledFilters;
+
+    /**
+     * Товары в колоночном виде
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private ProductBatch batch;
+
+    /**
+     * Подготовка данных.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        products = SyntheticProducts.products(size, 0);
+        rangeFilter = new RangeFilter("Цена", 10_000, 900_000);
+        checkBoxFilter = new CheckBoxFilter("Производитель", "HP", "Lenovo");
+        compiledFilters = FilterCompiler.compile(Arrays.<Filter>asList(rangeFilter, checkBoxFilter));
+        batch = new ProductBatch(products);
+    }
+
+    /**
+     * Проверка всех товаров фильтром цены.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return количество соответствующих товаров
+     */
+    @Benchmark
+    public int rangeFilter() {
+        int matched = 0;
+        for (Product product : products) {
+            if (rangeFilter.isMatches(product)) matched++;
+        }
+        return matched;
+    }
+
+    /**
+     * Проверка всех товаров фильтром производителя.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return количество соответствующих товаров
+     */
+    @Benchmark
+    public int checkBoxFilter() {
+        int matched = 0;
+        for (Product product : products) {
+            if (checkBoxFilter.isMatches(product)) matched++;
+        }
+        return matched;
+    }
+
+    /**
+     * Проверка всех товаров обоими фильтрами по отдельности, как в пошаговой проверке.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return количество несоответствий
+     */
+    @Benchmark
+    public int bothFiltersPerProduct() {
+        int mismatched = 0;
+        for (Product product : products) {
+            if (!rangeFilter.isMatches(product)) mismatched++;
+            if (!checkBoxFilter.isMatches(product)) mismatched++;
+        }
+        return mismatched;
+    }
+
+    /**
+     * Проверка готовой колоночной пачки скомпилированными фильтрами.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return количество несоответствий
+     */
+    @Benchmark
+    public int compiledOnBatch() {
+        int mismatched = 0;
+        for (BitSet mismatches : compiledFilters.mismatches(batch)) {
+            mismatched += mismatches.cardinality();
+        }
+        return mismatched;
+    }
+
+    /**
+     * Построение колоночной пачки и проверка скомпилированными фильтрами.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return количество несоответствий
+     */
+    @Benchmark
+    public int compiledWithBatchBuild() {
+        int mismatched = 0;
+        for (BitSet mismatches : compiledFilters.mismatches(new ProductBatch(products))) {
+            mismatched += mismatches.cardinality();
+        }
+        return mismatched;
+    }
+}
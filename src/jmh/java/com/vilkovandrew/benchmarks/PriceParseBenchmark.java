@@ -0,0 +1,122 @@
+package com.vilkovandrew.benchmarks;
+
+import com.vilkovandrew.yandex.market.helpers.PriceParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Бенчмарк разбора текста цены {@link PriceParser} в сравнении с прежним разбором регулярными выражениями.
+ * <p>
+ * Каждый вызов разбирает {@code size} текстов цен. Выделение памяти сравнивается запуском с профилировщиком
+ * {@code -Djmh.args="PriceParseBenchmark -prof gc"}.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class PriceParseBenchmark {
+    /**
+     * Количество цен
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    @Param({"100", "10000", "1000000"})
+    public int size;
+
+    /**
+     * Тексты цен
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private String[] priceTexts;
+
+    /**
+     * Разбор цен, общий для всех вызовов
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final PriceParser priceParser = new PriceParser();
+
+    /**
+     * Подготовка данных.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        priceTexts = SyntheticProducts.priceTexts(size);
+    }
+
+    /**
+     * Разбор всех цен прежним способом: удаление пробелов и проверка регулярным выражением.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return сумма цен
+     */
+    @Benchmark
+    public long regex() {
+        long sum = 0;
+        for (String priceText : priceTexts) {
+            sum += parseRegex(priceText);
+        }
+        return sum;
+    }
+
+    /**
+     * Разбор всех цен {@link PriceParser} с получением старой цены и скидки.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return сумма цен
+     */
+    @Benchmark
+    public long priceParser() {
+        long sum = 0;
+        for (String priceText : priceTexts) {
+            priceParser.parse(priceText);
+            sum += priceParser.getPrice() + priceParser.getOldPrice() + priceParser.getDiscount();
+        }
+        return sum;
+    }
+
+    /**
+     * Прежний разбор текста цены в число.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param priceText текст цены
+     * @return цена товара или {@link Integer#MIN_VALUE}, если цену не удалось разобрать
+     */
+    private static int parseRegex(String priceText) {
+        String priceString = priceText.replaceAll("\\s", "");
+        int price = Integer.MIN_VALUE;
+        if (Pattern.matches("\\d+", priceString)) price = Integer.parseInt(priceString);
+        return price;
+    }
+}
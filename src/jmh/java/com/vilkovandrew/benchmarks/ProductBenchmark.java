@@ -0,0 +1,170 @@
+package com.vilkovandrew.benchmarks;
+
+import com.vilkovandrew.yandex.market.helpers.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки сравнения товаров: {@link Product#equals(Object)}, {@link Product#hashCode()},
+ * поиск в {@link HashSet} и создание товаров.
+ * <p>
+ * Каждый вызов обрабатывает весь список из {@code size} товаров. Товары для поиска совпадают
+ * с исходными по заголовку и пути ссылки, но отличаются параметрами отслеживания.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ProductBenchmark {
+    /**
+     * Количество товаров
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    @Param({"100", "10000", "1000000"})
+    public int size;
+
+    /**
+     * Исходные товары
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private Product[] products;
+
+    /**
+     * Товары для поиска
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private Product[] probes;
+
+    /**
+     * Множество исходных товаров
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private Set<Product> set;
+
+    /**
+     * Заголовки для создания товаров
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private String[] headers;
+
+    /**
+     * Ссылки для создания товаров
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private String[] links;
+
+    /**
+     * Подготовка данных.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Product> source = SyntheticProducts.products(size, 0);
+        products = source.toArray(new Product[0]);
+        probes = SyntheticProducts.products(size, 1).toArray(new Product[0]);
+        set = new HashSet<>(source);
+        headers = SyntheticProducts.headers(size);
+        links = SyntheticProducts.links(size, 2);
+    }
+
+    /**
+     * Сравнение каждого товара с его копией.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return количество совпадений
+     */
+    @Benchmark
+    public int equalsPairs() {
+        int equal = 0;
+        for (int i = 0; i < products.length; i++) {
+            if (products[i].equals(probes[i])) equal++;
+        }
+        return equal;
+    }
+
+    /**
+     * Вычисление хэш-кода каждого товара.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return сумма хэш-кодов
+     */
+    @Benchmark
+    public int hashCodeAll() {
+        int sum = 0;
+        for (Product probe : probes) {
+            sum += probe.hashCode();
+        }
+        return sum;
+    }
+
+    /**
+     * Поиск каждой копии товара в {@link HashSet}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return количество найденных товаров
+     */
+    @Benchmark
+    public int hashSetLookup() {
+        int found = 0;
+        for (Product probe : probes) {
+            if (set.contains(probe)) found++;
+        }
+        return found;
+    }
+
+    /**
+     * Создание товаров из заголовков и ссылок.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param blackhole приёмник результатов
+     */
+    @Benchmark
+    public void construct(Blackhole blackhole) {
+        for (int i = 0; i < headers.length; i++) {
+            blackhole.consume(new Product(headers[i], links[i], i));
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.vilkovandrew.benchmarks;
+
+import com.vilkovandrew.yandex.market.helpers.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Генератор синтетических товаров, похожих на выдачу каталога ноутбуков Яндекс Маркета.
+ * <p>
+ * Заголовки содержат бренд, серию и характеристики, ссылки - путь товара и параметры отслеживания,
+ * цены - текст с пробелами между разрядами. Данные детерминированы для одинакового размера.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public final class SyntheticProducts {
+    /**
+     * Бренды ноутбуков
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    public static final String[] BRANDS = {"Apple", "ASUS", "Lenovo", "HP", "Acer", "MSI", "HUAWEI", "Xiaomi",
+            "DELL", "HONOR"};
+
+    /**
+     * Серии ноутбуков
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final String[] SERIES = {"IdeaPad 3", "VivoBook 15", "MacBook Air", "Pavilion 15", "Aspire 5",
+            "Modern 14", "MateBook D 16", "RedmiBook Pro", "Inspiron 3520", "MagicBook X"};
+
+    /**
+     * Процессоры ноутбуков
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final String[] CPUS = {"Intel Core i5 1235U", "AMD Ryzen 5 5500U", "Apple M2", "Intel Core i7 12700H",
+            "AMD Ryzen 7 7735HS", "Intel Celeron N4500"};
+
+    /**
+     * Символы для параметров отслеживания
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final char[] TOKEN_CHARS =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+
+    /**
+     * Начальное значение генератора случайных чисел
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final long SEED = 42;
+
+    /**
+     * Закрытый конструктор, класс содержит только статические методы.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private SyntheticProducts() {
+    }
+
+    /**
+     * Генерация заголовков товаров.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param size количество товаров
+     * @return массив заголовков
+     */
+    public static String[] headers(int size) {
+        Random random = new Random(SEED);
+        String[] headers = new String[size];
+        for (int i = 0; i < size; i++) {
+            headers[i] = String.format("Ноутбук %s %s %s, 15.6\", %d ГБ, SSD %d ГБ, арт. %d",
+                    BRANDS[random.nextInt(BRANDS.length)], SERIES[random.nextInt(SERIES.length)],
+                    CPUS[random.nextInt(CPUS.length)], 8 << random.nextInt(3), 256 << random.nextInt(3), i);
+        }
+        return headers;
+    }
+
+    /**
+     * Генерация ссылок на товары с параметрами отслеживания.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param size    количество товаров
+     * @param variant номер варианта параметров, у разных вариантов путь совпадает, а параметры отличаются
+     * @return массив ссылок
+     */
+    public static String[] links(int size, int variant) {
+        Random random = new Random(SEED + variant);
+        String[] links = new String[size];
+        for (int i = 0; i < size; i++) {
+            links[i] = "https://market.yandex.ru/product--noutbuk-" + i + "/" + (1_000_000_000L + i) +
+                    "?glfilter=7893318%3A152722&cpc=" + token(random, 120) +
+                    "&sku=" + (100_000_000_000L + i) + "&do-waremd5=" + token(random, 22) +
+                    "&cpa=1&nid=54544&track=srch_ddl&context=search&uniqueId=" + token(random, 16);
+        }
+        return links;
+    }
+
+    /**
+     * Генерация текстов цен в том виде, в котором их возвращает скрипт получения товаров.
+     * <p>
+     * Разряды разделяются пробелом или неразрывным пробелом, часть цен идёт со знаком рубля. Каждая десятая цена
+     * указана как "от ...", как у товара с несколькими предложениями, каждая пятая - со старой ценой и скидкой.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param size количество товаров
+     * @return массив текстов цен
+     */
+    public static String[] priceTexts(int size) {
+        Random random = new Random(SEED);
+        String[] prices = new String[size];
+        for (int i = 0; i < size; i++) {
+            int price = 15_000 + random.nextInt(285_000);
+            char separator = i % 2 == 0 ? ' ' : '\u00A0';
+            String text = String.format(Locale.ROOT, "%,d", price).replace(',', separator);
+            if (i % 10 == 9) {
+                prices[i] = "от " + text + "\nот " + text + " ₽";
+            } else if (i % 5 == 4) {
+                int oldPrice = price + price / 5;
+                String oldText = String.format(Locale.ROOT, "%,d", oldPrice).replace(',', separator);
+                prices[i] = text + "\n" + text + " ₽\n" + oldText + " ₽\n-" + (100 - price * 100 / oldPrice) + "%";
+            } else {
+                prices[i] = i % 3 == 0 ? text : text + "\n" + text + " ₽";
+            }
+        }
+        return prices;
+    }
+
+    /**
+     * Генерация товаров.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param size    количество товаров
+     * @param variant номер варианта параметров ссылок
+     * @return {@link List} содержащий товары
+     */
+    public static List<Product> products(int size, int variant) {
+        String[] headers = headers(size);
+        String[] links = links(size, variant);
+        Random random = new Random(SEED);
+        List<Product> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            products.add(new Product(headers[i], links[i], 15_000 + random.nextInt(285_000)));
+        }
+        return products;
+    }
+
+    /**
+     * Генерация случайной строки для параметра отслеживания.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param random генератор случайных чисел
+     * @param length длина строки
+     * @return строка
+     */
+    private static String token(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = TOKEN_CHARS[random.nextInt(TOKEN_CHARS.length)];
+        }
+        return new String(chars);
+    }
+}
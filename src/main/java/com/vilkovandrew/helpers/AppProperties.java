@@ -1,9 +1,18 @@
 package com.vilkovandrew.helpers;
 
+import com.vilkovandrew.yandex.market.helpers.CatalogEngineType;
+import com.vilkovandrew.yandex.market.helpers.ProductExtractionMode;
 import org.aeonbits.owner.Config;
+import org.aeonbits.owner.Mutable;
+
+import java.util.List;
 
 /**
  * Вспомогательный интерфейс для работы со свойствами.
+ * <p>
+ * Свойства можно переопределить во время выполнения, например адрес Яндекс Маркета
+ * заменяется адресом локального сервера в режиме {@link FixtureMode#REPLAY}.
+ * </p>
  *
  * @author Вилков Андрей
  */
@@ -12,7 +21,7 @@ import org.aeonbits.owner.Config;
         "system:env",
         "file:src/test/resources/tests.properties"
 })
-public interface AppProperties extends Config{
+public interface AppProperties extends Mutable {
     /**
      * Получение ссылки на Яндекс Маркет
      * <p>
@@ -45,4 +54,528 @@ public interface AppProperties extends Config{
      */
     @Key("timeout.next_page_loop")
     int getTimeoutNextPageLoop();
+
+    /**
+     * Получение способа извлечения товаров со страницы каталога
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает способ извлечения товаров
+     * @see ProductExtractionMode
+     */
+    @Key("catalog.extraction_mode")
+    @DefaultValue("SCRIPT")
+    ProductExtractionMode getProductExtractionMode();
+
+    /**
+     * Получение максимального количества одновременно открытых браузеров в пуле сессий
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает размер пула сессий
+     */
+    @Key("driver.pool.size")
+    @DefaultValue("2")
+    int getDriverPoolSize();
+
+    /**
+     * Получение максимального количества тестов, выполняемых в одной сессии браузера
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает количество переиспользований сессии
+     */
+    @Key("driver.pool.max_reuse")
+    @DefaultValue("10")
+    int getDriverPoolMaxReuse();
+
+    /**
+     * Получение таймаута ожидания свободной сессии в секундах
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает таймаут ожидания сессии в секундах
+     */
+    @Key("driver.pool.lease_timeout")
+    @DefaultValue("600")
+    int getDriverPoolLeaseTimeout();
+
+    /**
+     * Признак запуска браузера в облегчённом режиме: без окна, с фиксированным размером
+     * и блокировкой изображений, шрифтов, видео и счётчиков
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает true если браузер запускается в облегчённом режиме
+     */
+    @Key("browser.lean")
+    @DefaultValue("false")
+    boolean isLeanBrowser();
+
+    /**
+     * Получение размера окна браузера в облегчённом режиме
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает размер окна в формате 'ширина,высота'
+     */
+    @Key("browser.window_size")
+    @DefaultValue("1920,1080")
+    String getWindowSize();
+
+    /**
+     * Получение шаблонов URL, блокируемых в облегчённом режиме
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает список шаблонов URL, допускается символ '*'
+     */
+    @Key("browser.blocked_urls")
+    @DefaultValue("*.jpg,*.jpeg,*.png,*.gif,*.webp,*.avif,*.svg,*.ico," +
+            "*.woff,*.woff2,*.ttf,*.otf,*.mp4,*.webm,*.m3u8," +
+            "*avatars.mds.yandex.net*,*mc.yandex.ru*,*an.yandex.ru*,*yandex.ru/clck*,*adfox*," +
+            "*google-analytics.com*,*googletagmanager.com*,*doubleclick.net*")
+    List<String> getBlockedUrls();
+
+    /**
+     * Получение режима работы с записанными страницами
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает режим работы с записанными страницами
+     * @see FixtureMode
+     */
+    @Key("fixtures.mode")
+    @DefaultValue("OFF")
+    FixtureMode getFixtureMode();
+
+    /**
+     * Получение каталога для записанных страниц
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает путь до каталога с записанными страницами
+     */
+    @Key("fixtures.dir")
+    @DefaultValue("src/test/resources/fixtures")
+    String getFixturesDir();
+
+    /**
+     * Получение порта локального сервера записанных страниц
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает порт сервера, 0 для выбора свободного порта
+     */
+    @Key("fixtures.port")
+    @DefaultValue("0")
+    int getFixturesPort();
+
+    /**
+     * Признак проверки страниц конвейером: следующая страница загружается во время проверки предыдущей
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает true если страницы проверяются конвейером
+     */
+    @Key("validation.pipeline")
+    @DefaultValue("true")
+    boolean isValidationPipeline();
+
+    /**
+     * Получение максимального количества страниц, ожидающих проверки в конвейере
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает глубину очереди конвейера
+     */
+    @Key("validation.pipeline.queue_depth")
+    @DefaultValue("2")
+    int getValidationQueueDepth();
+
+    /**
+     * Признак установки фильтров через параметры адреса страницы вместо интерфейса
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает true если фильтры устанавливаются через адрес страницы
+     */
+    @Key("filters.by_url")
+    @DefaultValue("true")
+    boolean isFiltersByUrl();
+
+    /**
+     * Получение таймаута ожидания появления элемента в миллисекундах
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает таймаут в миллисекундах
+     * @see WaitPolicy#PRESENCE
+     */
+    @Key("wait.presence.timeout_ms")
+    @DefaultValue("30000")
+    long getPresenceTimeout();
+
+    /**
+     * Получение интервала опроса при ожидании появления элемента в миллисекундах
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает интервал опроса в миллисекундах
+     * @see WaitPolicy#PRESENCE
+     */
+    @Key("wait.presence.poll_ms")
+    @DefaultValue("250")
+    long getPresencePoll();
+
+    /**
+     * Получение таймаута ожидания исчезновения элемента в миллисекундах
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает таймаут в миллисекундах
+     * @see WaitPolicy#ABSENCE
+     */
+    @Key("wait.absence.timeout_ms")
+    @DefaultValue("20000")
+    long getAbsenceTimeout();
+
+    /**
+     * Получение интервала опроса при ожидании исчезновения элемента в миллисекундах
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает интервал опроса в миллисекундах
+     * @see WaitPolicy#ABSENCE
+     */
+    @Key("wait.absence.poll_ms")
+    @DefaultValue("100")
+    long getAbsencePoll();
+
+    /**
+     * Получение таймаута ожидания устаревания элемента в миллисекундах
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает таймаут в миллисекундах
+     * @see WaitPolicy#STALENESS
+     */
+    @Key("wait.staleness.timeout_ms")
+    @DefaultValue("20000")
+    long getStalenessTimeout();
+
+    /**
+     * Получение интервала опроса при ожидании устаревания элемента в миллисекундах
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает интервал опроса в миллисекундах
+     * @see WaitPolicy#STALENESS
+     */
+    @Key("wait.staleness.poll_ms")
+    @DefaultValue("100")
+    long getStalenessPoll();
+
+    /**
+     * Получение таймаута ожидания готовности страницы в миллисекундах
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает таймаут в миллисекундах
+     * @see WaitPolicy#READINESS
+     */
+    @Key("wait.readiness.timeout_ms")
+    @DefaultValue("60000")
+    long getReadinessTimeout();
+
+    /**
+     * Получение интервала опроса при ожидании готовности страницы в миллисекундах
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает интервал опроса в миллисекундах
+     * @see WaitPolicy#READINESS
+     */
+    @Key("wait.readiness.poll_ms")
+    @DefaultValue("250")
+    long getReadinessPoll();
+
+    /**
+     * Получение периода без изменений, после которого список товаров считается загруженным, в миллисекундах
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает период тишины в миллисекундах
+     */
+    @Key("wait.readiness.quiet_ms")
+    @DefaultValue("300")
+    long getReadinessQuietPeriod();
+
+    /**
+     * Получение режима записи проверок товаров в отчёт
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает режим отчёта
+     * @see ReportMode
+     */
+    @Key("report.mode")
+    @DefaultValue("AGGREGATED")
+    ReportMode getReportMode();
+
+    /**
+     * Признак обработки и записи скриншотов в фоновом потоке
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает true если скриншоты записываются в фоне
+     * @see Screenshoter#attach(org.openqa.selenium.WebDriver)
+     */
+    @Key("screenshot.async")
+    @DefaultValue("true")
+    boolean isScreenshotAsync();
+
+    /**
+     * Получение максимального размера вложения со скриншотом в байтах
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает максимальный размер скриншота
+     */
+    @Key("screenshot.max_bytes")
+    @DefaultValue("524288")
+    long getScreenshotMaxBytes();
+
+    /**
+     * Получение максимальной ширины скриншота в пикселях
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает максимальную ширину скриншота
+     */
+    @Key("screenshot.max_width")
+    @DefaultValue("1600")
+    int getScreenshotMaxWidth();
+
+    /**
+     * Признак мягкой проверки товаров: все несоответствия собираются, тест падает один раз после обхода страниц
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает true если проверка мягкая
+     */
+    @Key("validation.soft")
+    @DefaultValue("false")
+    boolean isSoftValidation();
+
+    /**
+     * Получение максимального количества скриншотов несоответствующих товаров при мягкой проверке
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает максимальное количество скриншотов
+     */
+    @Key("validation.soft.max_screenshots")
+    @DefaultValue("20")
+    int getSoftValidationMaxScreenshots();
+
+    /**
+     * Получение пути к файлу CSV с задержками шагов
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает путь к файлу
+     * @see StepLatencies
+     */
+    @Key("metrics.step_latency_file")
+    @DefaultValue("target/step-latency.csv")
+    String getStepLatencyFile();
+
+    /**
+     * Получение пути к файлу CSV со скоростью обхода страниц по способам чтения, накопленной за все запуски
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает путь к файлу
+     * @see com.vilkovandrew.steps.EngineThroughput
+     */
+    @Key("metrics.engine_throughput_file")
+    @DefaultValue("target/engine-throughput.csv")
+    String getEngineThroughputFile();
+
+    /**
+     * Признак замера команд WebDriver через {@link CommandTimingListener}
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает true если команды драйвера замеряются
+     * @see CommandStatistics
+     */
+    @Key("driver.command_stats")
+    @DefaultValue("true")
+    boolean isCommandStatistics();
+
+    /**
+     * Получение максимального количества товаров, собираемых с одной страницы каталога
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает максимальное количество товаров на странице
+     * @see com.vilkovandrew.yandex.market.pages.VirtuosoHarvester
+     */
+    @Key("catalog.page_size")
+    @DefaultValue("48")
+    int getCatalogPageSize();
+
+    /**
+     * Получение периода без изменений списка после шага прокрутки при сборе товаров, в миллисекундах
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает период тишины в миллисекундах
+     * @see com.vilkovandrew.yandex.market.pages.VirtuosoHarvester
+     */
+    @Key("catalog.harvest.step_quiet_ms")
+    @DefaultValue("100")
+    long getHarvestStepQuietPeriod();
+
+    /**
+     * Получение количества сессий браузера, между которыми распределяются страницы результатов при проверке
+     * <p>
+     * Дополнительные сессии берутся из {@link WebDriverPool} без ожидания, значение 1 отключает распределение.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает количество сессий
+     */
+    @Key("validation.fan_out.sessions")
+    @DefaultValue("1")
+    int getFanOutSessions();
+
+    /**
+     * Получение срока жизни снимков сессии браузера в минутах, значение 0 отключает снимки
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает срок жизни снимка в минутах
+     * @see SessionSnapshots
+     */
+    @Key("session.snapshot.ttl_minutes")
+    @DefaultValue("30")
+    long getSessionSnapshotTtl();
+
+    /**
+     * Получение пути к каталогу снимков сессии браузера
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает путь к каталогу
+     * @see SessionSnapshots
+     */
+    @Key("session.snapshot.dir")
+    @DefaultValue("target/session-snapshots")
+    String getSessionSnapshotDir();
+
+    /**
+     * Получение пути к файлу карты навигации каталога
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает путь к файлу
+     * @see com.vilkovandrew.yandex.market.helpers.CatalogNavigationMap
+     */
+    @Key("catalog.navigation_map.file")
+    @DefaultValue("target/catalog-navigation.json")
+    String getCatalogNavigationMapFile();
+
+    /**
+     * Получение срока жизни записей карты навигации каталога в часах
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает срок жизни записи в часах
+     * @see com.vilkovandrew.yandex.market.helpers.CatalogNavigationMap
+     */
+    @Key("catalog.navigation_map.ttl_hours")
+    @DefaultValue("24")
+    long getCatalogNavigationMapTtl();
+
+    /**
+     * Получение количества потоков разбора снимков страниц в режиме
+     * {@link com.vilkovandrew.yandex.market.helpers.ProductExtractionMode#SNAPSHOT}
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает количество потоков
+     * @see com.vilkovandrew.yandex.market.helpers.PageSnapshot
+     */
+    @Key("catalog.snapshot.parse_threads")
+    @DefaultValue("2")
+    int getSnapshotParseThreads();
+
+    /**
+     * Получение способа чтения страниц результатов при проверке фильтров
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает способ чтения страниц
+     * @see CatalogEngineType
+     */
+    @Key("validation.engine")
+    @DefaultValue("SELENIUM")
+    CatalogEngineType getCatalogEngine();
+
+    /**
+     * Получение количества потоков загрузки страниц HTTP клиентом
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return возвращает количество потоков
+     * @see com.vilkovandrew.yandex.market.pages.HttpCatalogEngine
+     */
+    @Key("validation.http.threads")
+    @DefaultValue("4")
+    int getHttpThreads();
 }
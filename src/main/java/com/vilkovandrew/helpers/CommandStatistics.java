@@ -0,0 +1,232 @@
+package com.vilkovandrew.helpers;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.lang.String.format;
+
+/**
+ * Реестр статистики команд WebDriver по сценариям и шагам.
+ * <p>
+ * Заполняется слушателем {@link CommandTimingListener}. Сценарий и текущий шаг берутся из {@link StepLatencies},
+ * поэтому команды из пулов потоков учитываются в сценарии теста, если задачи отправлены
+ * через {@link StepLatencies#propagate(Runnable)}.
+ * </p>
+ * <p>
+ * Статистика разных тестов разделена только их сценариями: тесты, выполняемые параллельно, должны иметь
+ * разные сценарии, иначе {@link #reset()} одного теста удалит статистику другого. Команды вне сценария,
+ * например при создании сессий пула, не учитываются: их некому сбросить и негде показать.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class CommandStatistics {
+    /**
+     * Количество строк в сводке по умолчанию
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    public static final int DEFAULT_TOP = 20;
+
+    /**
+     * Статистика по сценариям, шагам и командам
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final ConcurrentMap<String, ConcurrentMap<String, ConcurrentMap<String, Counter>>> STATISTICS =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Закрытый конструктор, класс содержит только статические методы.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private CommandStatistics() {
+    }
+
+    /**
+     * Запись выполненной команды в текущий шаг сценария текущего потока.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param command имя команды
+     * @param nanos   время выполнения в наносекундах
+     */
+    public static void record(String command, long nanos) {
+        String scenario = StepLatencies.getScenario();
+        if (StepLatencies.NO_SCENARIO.equals(scenario)) return;
+        STATISTICS.computeIfAbsent(scenario, s -> new ConcurrentHashMap<>())
+                .computeIfAbsent(StepLatencies.getCurrentStep(), s -> new ConcurrentHashMap<>())
+                .computeIfAbsent(command, c -> new Counter())
+                .add(nanos);
+    }
+
+    /**
+     * Получение сводки по командам сценария текущего потока в формате CSV.
+     * <p>
+     * Строки отсортированы по суммарному времени команды в шаге, первая строка после заголовка - итог по сценарию.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param top количество строк с командами
+     * @return сводка по командам
+     */
+    public static String toCsv(int top) {
+        List<String[]> keys = new ArrayList<>();
+        List<Counter> counters = new ArrayList<>();
+        Counter total = new Counter();
+        Map<String, ConcurrentMap<String, Counter>> steps = STATISTICS.get(StepLatencies.getScenario());
+        if (steps != null) {
+            steps.forEach((step, commands) -> commands.forEach((command, counter) -> {
+                keys.add(new String[]{step, command});
+                counters.add(counter);
+                total.merge(counter);
+            }));
+        }
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < counters.size(); i++) order.add(i);
+        order.sort(Comparator.comparingLong((Integer i) -> counters.get(i).getTotalNanos()).reversed());
+
+        StringBuilder csv = new StringBuilder("step,command,count,total_ms,avg_ms,max_ms\n");
+        appendRow(csv, "*", "*", total);
+        for (int i = 0; i < Math.min(top, order.size()); i++) {
+            String[] key = keys.get(order.get(i));
+            appendRow(csv, key[0], key[1], counters.get(order.get(i)));
+        }
+        return csv.toString();
+    }
+
+    /**
+     * Удаление статистики сценария текущего потока.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    public static void reset() {
+        STATISTICS.remove(StepLatencies.getScenario());
+    }
+
+    /**
+     * Добавление строки в сводку.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param csv     сводка
+     * @param step    имя шага
+     * @param command имя команды
+     * @param counter статистика команды
+     */
+    private static void appendRow(StringBuilder csv, String step, String command, Counter counter) {
+        long count = counter.getCount();
+        csv.append(format(Locale.ROOT, "\"%s\",%s,%d,%.3f,%.3f,%.3f%n", step, command, count,
+                counter.getTotalNanos() / 1e6, count == 0 ? 0 : counter.getTotalNanos() / 1e6 / count,
+                counter.getMaxNanos() / 1e6));
+    }
+
+    /**
+     * Счётчик количества и времени выполнения команды.
+     *
+     * @author Вилков Андрей
+     */
+    private static class Counter {
+        /**
+         * Количество выполнений
+         * <p>
+         * Автор: Вилков Андрей
+         * </p>
+         */
+        private final LongAdder count = new LongAdder();
+        /**
+         * Суммарное время в наносекундах
+         * <p>
+         * Автор: Вилков Андрей
+         * </p>
+         */
+        private final LongAdder totalNanos = new LongAdder();
+        /**
+         * Максимальное время в наносекундах
+         * <p>
+         * Автор: Вилков Андрей
+         * </p>
+         */
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        /**
+         * Запись выполнения команды.
+         * <p>
+         * Автор: Вилков Андрей
+         * </p>
+         *
+         * @param nanos время выполнения в наносекундах
+         */
+        void add(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        /**
+         * Добавление статистики другого счётчика.
+         * <p>
+         * Автор: Вилков Андрей
+         * </p>
+         *
+         * @param other другой счётчик
+         */
+        void merge(Counter other) {
+            count.add(other.getCount());
+            totalNanos.add(other.getTotalNanos());
+            maxNanos.accumulateAndGet(other.getMaxNanos(), Math::max);
+        }
+
+        /**
+         * Получение количества выполнений.
+         * <p>
+         * Автор: Вилков Андрей
+         * </p>
+         *
+         * @return количество выполнений
+         */
+        long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Получение суммарного времени.
+         * <p>
+         * Автор: Вилков Андрей
+         * </p>
+         *
+         * @return суммарное время в наносекундах
+         */
+        long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        /**
+         * Получение максимального времени.
+         * <p>
+         * Автор: Вилков Андрей
+         * </p>
+         *
+         * @return максимальное время в наносекундах
+         */
+        long getMaxNanos() {
+            return maxNanos.get();
+        }
+    }
+}
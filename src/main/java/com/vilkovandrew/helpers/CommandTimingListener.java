@@ -0,0 +1,126 @@
+package com.vilkovandrew.helpers;
+
+import org.openqa.selenium.Alert;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Слушатель команд WebDriver для {@link org.openqa.selenium.support.events.EventFiringDecorator}.
+ * <p>
+ * Замеряет время каждой команды драйвера и элементов и записывает его в {@link CommandStatistics}
+ * с привязкой к текущему шагу. Локальные вызовы без обращения к браузеру не учитываются.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class CommandTimingListener implements WebDriverListener {
+    /**
+     * Методы, которые не отправляют команду браузеру
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final Set<String> LOCAL_METHODS = new HashSet<>(Arrays.asList(
+            "manage", "navigate", "switchTo", "timeouts", "window", "getWrappedDriver", "getWrappedElement",
+            "toString", "hashCode", "equals"));
+
+    /**
+     * Время начала выполняемых команд текущего потока
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final ThreadLocal<Deque<Long>> starts = ThreadLocal.withInitial(ArrayDeque::new);
+
+    /**
+     * Отметка начала команды.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param target объект, у которого вызвана команда
+     * @param method метод команды
+     * @param args   аргументы команды
+     */
+    @Override
+    public void beforeAnyCall(Object target, Method method, Object[] args) {
+        starts.get().push(System.nanoTime());
+    }
+
+    /**
+     * Запись времени успешно выполненной команды.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param target объект, у которого вызвана команда
+     * @param method метод команды
+     * @param args   аргументы команды
+     * @param result результат команды
+     */
+    @Override
+    public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+        finish(target, method);
+    }
+
+    /**
+     * Запись времени команды, завершившейся ошибкой.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param target объект, у которого вызвана команда
+     * @param method метод команды
+     * @param args   аргументы команды
+     * @param e      ошибка команды
+     */
+    @Override
+    public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+        finish(target, method);
+    }
+
+    /**
+     * Запись времени команды в статистику.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param target объект, у которого вызвана команда
+     * @param method метод команды
+     */
+    private void finish(Object target, Method method) {
+        Long start = starts.get().poll();
+        if (start == null || LOCAL_METHODS.contains(method.getName())) return;
+        CommandStatistics.record(getCategory(target) + "." + method.getName(), System.nanoTime() - start);
+    }
+
+    /**
+     * Получение категории объекта команды.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param target объект, у которого вызвана команда
+     * @return категория: driver, element, navigate, options, timeouts, window, switchTo, alert или имя класса
+     */
+    private static String getCategory(Object target) {
+        if (target instanceof WebDriver) return "driver";
+        if (target instanceof WebElement) return "element";
+        if (target instanceof WebDriver.Navigation) return "navigate";
+        if (target instanceof WebDriver.Options) return "options";
+        if (target instanceof WebDriver.Timeouts) return "timeouts";
+        if (target instanceof WebDriver.Window) return "window";
+        if (target instanceof WebDriver.TargetLocator) return "switchTo";
+        if (target instanceof Alert) return "alert";
+        return target.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,82 @@
+package com.vilkovandrew.helpers;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Вспомогательный класс для хранения экземпляра {@link WebDriver} текущего потока.
+ * <p>
+ * Позволяет выполнять шаги нескольких тестов параллельно, каждый со своим браузером.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class DriverContext {
+    /**
+     * Экземпляр класса {@link WebDriver} текущего потока.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final ThreadLocal<WebDriver> DRIVER = new ThreadLocal<>();
+
+    /**
+     * Экземпляр класса {@link Waits} текущего потока.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final ThreadLocal<Waits> WAITS = new ThreadLocal<>();
+
+    /**
+     * Установка драйвера для текущего потока.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param driver экземпляр класса {@link WebDriver}
+     */
+    public static void setDriver(WebDriver driver) {
+        if (DRIVER.get() == driver) return;
+        DRIVER.set(driver);
+        WAITS.set(new Waits(driver));
+    }
+
+    /**
+     * Получение драйвера текущего потока.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return экземпляр класса {@link WebDriver}
+     */
+    public static WebDriver getDriver() {
+        WebDriver driver = DRIVER.get();
+        if (driver == null)
+            Assertions.fail("Драйвер для потока '" + Thread.currentThread().getName() + "' не установлен");
+        return driver;
+    }
+
+    /**
+     * Получение ожиданий для драйвера текущего потока.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return экземпляр класса {@link Waits}
+     */
+    public static Waits getWaits() {
+        getDriver();
+        return WAITS.get();
+    }
+
+    /**
+     * Удаление драйвера текущего потока.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    public static void clear() {
+        DRIVER.remove();
+        WAITS.remove();
+    }
+}
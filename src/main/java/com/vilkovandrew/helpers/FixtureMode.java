@@ -0,0 +1,30 @@
+package com.vilkovandrew.helpers;
+
+/**
+ * Класс предоставляющий режимы работы с записанными страницами Яндекс Маркета.
+ *
+ * @author Вилков Андрей
+ */
+public enum FixtureMode {
+    /**
+     * Работа с живым сайтом без записи страниц
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    OFF,
+    /**
+     * Работа с живым сайтом и запись открытых страниц
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    RECORD,
+    /**
+     * Работа с записанными страницами через локальный HTTP сервер
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    REPLAY;
+}
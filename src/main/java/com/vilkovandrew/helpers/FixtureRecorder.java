@@ -0,0 +1,186 @@
+package com.vilkovandrew.helpers;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static java.lang.String.format;
+
+/**
+ * Вспомогательный класс для записи страниц Яндекс Маркета, которые открывают тесты.
+ * <p>
+ * В режиме {@link FixtureMode#RECORD} сохраняет отрисованный DOM страницы без скриптов,
+ * с ссылками на сам сайт, переписанными в относительные. Записанные страницы отдаёт {@link FixtureServer}.
+ * </p>
+ * <p>
+ * Страницы записываются в сценарии, заданном для потока через {@link #setScenario(WebDriver, String)},
+ * поэтому одна и та же страница разных сценариев не перезаписывается.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class FixtureRecorder {
+    /**
+     * Паттерн для удаления скриптов из записываемой страницы.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final Pattern SCRIPT_PATTERN = Pattern.compile("(?is)<script\\b.*?</script>");
+
+    /**
+     * Сценарий, в котором записываются страницы текущего потока.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final ThreadLocal<String> SCENARIO = ThreadLocal.withInitial(() -> "");
+
+    /**
+     * Установка сценария для записи страниц в текущем потоке.
+     * <p>
+     * В режиме {@link FixtureMode#REPLAY} сценарий также передаётся браузеру cookie {@link FixtureServer#SCENARIO_COOKIE},
+     * чтобы сервер отдавал страницы этого сценария. Cookie устанавливается через DevTools без перехода на сайт.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param driver   сессия браузера, в которой выполняется сценарий
+     * @param scenario имя сценария
+     */
+    public static void setScenario(WebDriver driver, String scenario) {
+        SCENARIO.set(scenario);
+        if (Properties.appProperties.getFixtureMode() != FixtureMode.REPLAY || !(driver instanceof HasCdp)) return;
+        Map<String, Object> cookie = new HashMap<>();
+        cookie.put("name", FixtureServer.SCENARIO_COOKIE);
+        try {
+            cookie.put("value", URLEncoder.encode(scenario, "UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        cookie.put("url", Properties.appProperties.getYaMarketUrl());
+        ((HasCdp) driver).executeCdpCommand("Network.setCookie", cookie);
+    }
+
+    /**
+     * Получение сценария текущего потока.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return имя сценария, пустое если сценарий не задан
+     */
+    public static String getScenario() {
+        return SCENARIO.get();
+    }
+
+    /**
+     * Сброс сценария текущего потока.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    public static void clearScenario() {
+        SCENARIO.remove();
+    }
+
+    /**
+     * Запись текущей страницы браузера, если включён режим записи.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param driver экземпляр класса {@link WebDriver}
+     */
+    public static void record(WebDriver driver) {
+        if (Properties.appProperties.getFixtureMode() != FixtureMode.RECORD) return;
+        record(driver.getCurrentUrl(), driver.getPageSource());
+    }
+
+    /**
+     * Запись уже полученного исходного кода страницы, если включён режим записи.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param url        адрес страницы
+     * @param pageSource исходный код страницы
+     */
+    public static void record(String url, String pageSource) {
+        if (Properties.appProperties.getFixtureMode() != FixtureMode.RECORD) return;
+        URI uri = URI.create(url);
+        String origin = uri.getScheme() + "://" + uri.getRawAuthority();
+        String html = SCRIPT_PATTERN.matcher(pageSource).replaceAll("")
+                .replace(origin, "")
+                .replace("//" + uri.getRawAuthority(), "");
+        save(FixtureServer.getKey(SCENARIO.get(), uri), html);
+    }
+
+    /**
+     * Сохранение страницы и обновление индекса записей.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param key  ключ записи
+     * @param html содержимое страницы
+     */
+    private static synchronized void save(String key, String html) {
+        Path dir = Paths.get(Properties.appProperties.getFixturesDir());
+        Path indexFile = dir.resolve(FixtureServer.INDEX_FILE);
+        String file = sha1(key) + ".html";
+        try {
+            Files.createDirectories(dir);
+            Files.write(dir.resolve(file), html.getBytes(StandardCharsets.UTF_8));
+            java.util.Properties index = new java.util.Properties();
+            if (Files.exists(indexFile)) {
+                try (Reader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+                    index.load(reader);
+                }
+            }
+            index.setProperty(key, file);
+            try (Writer writer = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8)) {
+                index.store(writer, "Recorded Yandex Market pages");
+            }
+        } catch (IOException e) {
+            Assertions.fail(format("Не удалось записать страницу '%s'", key), e);
+        }
+    }
+
+    /**
+     * Получение SHA-1 хеша строки.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param value строка
+     * @return шестнадцатеричное представление хеша
+     */
+    private static String sha1(String value) {
+        try {
+            StringBuilder builder = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-1").digest(value.getBytes(StandardCharsets.UTF_8))) {
+                builder.append(format("%02x", b));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package com.vilkovandrew.helpers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.openqa.selenium.WebDriver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+import static java.lang.String.format;
+
+/**
+ * Локальный HTTP сервер, отдающий записанные страницы Яндекс Маркета.
+ * <p>
+ * Страницы записываются классом {@link FixtureRecorder}. Запрос сопоставляется с записью
+ * по пути и параметрам: сначала ищется точное совпадение, затем запись с тем же путём, все параметры
+ * которой есть в запросе. Из подходящих выбирается запись с наибольшим количеством параметров, если подходящих
+ * записей нет, сервер отвечает 404. Параметры отслеживания {@link #IGNORED_PARAMS} при сопоставлении
+ * не учитываются, отсутствующий номер страницы считается первой страницей.
+ * </p>
+ * <p>
+ * Записи разных сценариев хранятся раздельно: одна и та же страница, например главная, в разных сценариях
+ * записывается с разным состоянием. Сценарий запроса передаётся cookie {@link #SCENARIO_COOKIE}, которую
+ * устанавливает {@link FixtureRecorder#setScenario(WebDriver, String)}. Если для сценария подходящей записи нет,
+ * используются записи без сценария.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class FixtureServer {
+    /**
+     * Имя файла индекса записанных страниц.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    public static final String INDEX_FILE = "index.properties";
+
+    /**
+     * Имя cookie со сценарием, записи которого отдаёт сервер.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    public static final String SCENARIO_COOKIE = "fixture-scenario";
+
+    /**
+     * Разделитель сценария и адреса в ключе записи.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final char SCENARIO_SEPARATOR = '|';
+
+    /**
+     * Параметры отслеживания, которые не учитываются при сопоставлении запроса с записью.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final Set<String> IGNORED_PARAMS = new HashSet<>(Arrays.asList(
+            "clid", "rs", "was_redir", "utm_source", "utm_medium", "utm_campaign", "utm_content", "utm_term"));
+
+    /**
+     * Параметр номера страницы результатов.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final String PAGE_PARAM = "page";
+
+    /**
+     * Запущенный экземпляр сервера.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static FixtureServer instance;
+
+    /**
+     * Экземпляр HTTP сервера.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final HttpServer server;
+
+    /**
+     * Каталог с записанными страницами.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final Path dir;
+
+    /**
+     * Соответствие ключа запроса имени файла записанной страницы.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final Map<String, String> index = new ConcurrentHashMap<>();
+
+    /**
+     * Конструктор класса {@link FixtureServer}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param dir  каталог с записанными страницами
+     * @param port порт сервера, 0 для выбора свободного порта
+     * @throws IOException если не удалось прочитать индекс или открыть порт
+     */
+    private FixtureServer(Path dir, int port) throws IOException {
+        this.dir = dir;
+        java.util.Properties stored = new java.util.Properties();
+        try (Reader reader = Files.newBufferedReader(dir.resolve(INDEX_FILE), StandardCharsets.UTF_8)) {
+            stored.load(reader);
+        }
+        stored.stringPropertyNames().forEach(key -> index.put(key, stored.getProperty(key)));
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "fixture-server");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.start();
+    }
+
+    /**
+     * Запуск сервера, если он ещё не запущен.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param dir  каталог с записанными страницами
+     * @param port порт сервера, 0 для выбора свободного порта
+     * @return запущенный экземпляр сервера
+     */
+    public static synchronized FixtureServer start(String dir, int port) {
+        if (instance == null) {
+            try {
+                instance = new FixtureServer(Paths.get(dir), port);
+            } catch (IOException e) {
+                throw new IllegalStateException(format("Не удалось запустить сервер записанных страниц из '%s'", dir), e);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(instance::stop));
+        }
+        return instance;
+    }
+
+    /**
+     * Получение адреса сервера.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return адрес в виде 'http://хост:порт'
+     */
+    public String getUrl() {
+        InetSocketAddress address = server.getAddress();
+        return format("http://%s:%d", address.getHostString(), address.getPort());
+    }
+
+    /**
+     * Остановка сервера.
+     * <p>
+     * Поток приёма соединений сервера не является фоновым и не даёт JVM завершиться, пока сервер не остановлен.
+     * После остановки {@link #start(String, int)} запускает новый сервер.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    public void stop() {
+        synchronized (FixtureServer.class) {
+            if (instance == this) instance = null;
+        }
+        server.stop(0);
+    }
+
+    /**
+     * Получение ключа записи для адреса страницы.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param uri адрес страницы
+     * @return ключ в виде 'путь[?параметры]'
+     */
+    public static String getKey(URI uri) {
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        return uri.getRawQuery() == null ? path : path + "?" + uri.getRawQuery();
+    }
+
+    /**
+     * Получение ключа записи для адреса страницы в сценарии.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param scenario сценарий, пустой для записи без сценария
+     * @param uri      адрес страницы
+     * @return ключ в виде 'сценарий|путь[?параметры]' или 'путь[?параметры]' без сценария
+     */
+    public static String getKey(String scenario, URI uri) {
+        return scenario == null || scenario.isEmpty() ? getKey(uri) : scenario + SCENARIO_SEPARATOR + getKey(uri);
+    }
+
+    /**
+     * Обработка запроса к серверу.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param exchange запрос и ответ HTTP
+     * @throws IOException если не удалось отправить ответ
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().close();
+        try (OutputStream body = exchange.getResponseBody()) {
+            String key = getKey(exchange.getRequestURI());
+            String scenario = getScenario(exchange);
+            String file = scenario.isEmpty() ? null : find(scenario, key);
+            if (file == null) file = find("", key);
+            if (file == null || !Files.isRegularFile(dir.resolve(file))) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            byte[] content = Files.readAllBytes(dir.resolve(file));
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(200, content.length);
+            body.write(content);
+        }
+    }
+
+    /**
+     * Получение сценария запроса из cookie {@link #SCENARIO_COOKIE}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param exchange запрос и ответ HTTP
+     * @return сценарий, пустой если cookie нет
+     */
+    private static String getScenario(HttpExchange exchange) {
+        for (String header : exchange.getRequestHeaders().getOrDefault("Cookie", Collections.emptyList())) {
+            for (String cookie : header.split(";")) {
+                String[] pair = cookie.trim().split("=", 2);
+                if (pair.length == 2 && pair[0].equals(SCENARIO_COOKIE)) {
+                    try {
+                        return URLDecoder.decode(pair[1], "UTF-8");
+                    } catch (UnsupportedEncodingException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Поиск записанной страницы для ключа запроса среди записей сценария.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param scenario сценарий, пустой для записей без сценария
+     * @param key      ключ запроса без сценария
+     * @return имя файла записанной страницы или null, если подходящей записи нет
+     */
+    private String find(String scenario, String key) {
+        String prefix = scenario.isEmpty() ? "" : scenario + SCENARIO_SEPARATOR;
+        String file = index.get(prefix + key);
+        if (file != null) return file;
+        String path = getPath(key);
+        Set<String> params = getParams(key);
+        int bestSize = -1;
+        for (Map.Entry<String, String> entry : index.entrySet()) {
+            int separator = entry.getKey().indexOf(SCENARIO_SEPARATOR);
+            if (!entry.getKey().substring(0, separator + 1).equals(prefix)) continue;
+            String entryKey = entry.getKey().substring(separator + 1);
+            if (!getPath(entryKey).equals(path)) continue;
+            Set<String> entryParams = getParams(entryKey);
+            if (entryParams.size() > bestSize && params.containsAll(entryParams)) {
+                bestSize = entryParams.size();
+                file = entry.getValue();
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Получение пути из ключа запроса.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param key ключ запроса
+     * @return путь без параметров
+     */
+    private static String getPath(String key) {
+        int index = key.indexOf('?');
+        return index < 0 ? key : key.substring(0, index);
+    }
+
+    /**
+     * Получение параметров из ключа запроса.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param key ключ запроса
+     * @return множество параметров в виде 'имя=значение' без параметров {@link #IGNORED_PARAMS},
+     * с первой страницей, если номер страницы не указан
+     */
+    private static Set<String> getParams(String key) {
+        Set<String> params = new HashSet<>();
+        int index = key.indexOf('?');
+        boolean hasPage = false;
+        if (index >= 0) {
+            for (String param : key.substring(index + 1).split("&")) {
+                if (param.isEmpty()) continue;
+                String name = param.split("=", 2)[0];
+                if (IGNORED_PARAMS.contains(name)) continue;
+                if (name.equals(PAGE_PARAM)) hasPage = true;
+                params.add(param);
+            }
+        }
+        if (!hasPage) params.add(PAGE_PARAM + "=1");
+        return params;
+    }
+}
@@ -0,0 +1,157 @@
+package com.vilkovandrew.helpers;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Гистограмма задержек с логарифмическими корзинами.
+ * <p>
+ * Значения хранятся в микросекундах: каждая степень двойки делится на {@value #SUB_BUCKETS} корзин,
+ * поэтому относительная погрешность перцентилей не больше 1/{@value #SUB_BUCKETS}. Запись - одна атомарная
+ * операция над счётчиком корзины без блокировок и выделения памяти.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class LatencyHistogram {
+    /**
+     * Количество корзин на одну степень двойки
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final int SUB_BUCKETS = 16;
+
+    /**
+     * Двоичный логарифм количества корзин на одну степень двойки
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /**
+     * Количество корзин, достаточное для значений до 2^40 микросекунд
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final int BUCKETS = (40 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    /**
+     * Счётчики корзин
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Количество записанных значений
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final AtomicLong total = new AtomicLong();
+
+    /**
+     * Максимальное записанное значение в микросекундах
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Запись задержки.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param nanos задержка в наносекундах
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(Math.min(BUCKETS - 1, bucket(micros)));
+        total.incrementAndGet();
+        max.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * Получение количества записанных значений.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return количество значений
+     */
+    public long getCount() {
+        return total.get();
+    }
+
+    /**
+     * Получение максимальной задержки.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return максимальная задержка в микросекундах
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Получение перцентиля задержки.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param percentile перцентиль от 0 до 100
+     * @return верхняя граница корзины перцентиля в микросекундах, но не больше максимальной задержки
+     */
+    public long getPercentile(double percentile) {
+        long count = total.get();
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    /**
+     * Вычисление номера корзины значения.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param micros значение в микросекундах
+     * @return номер корзины
+     */
+    private static int bucket(long micros) {
+        if (micros < SUB_BUCKETS) return (int) micros;
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Вычисление верхней границы корзины.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param bucket номер корзины
+     * @return наибольшее значение корзины в микросекундах
+     */
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + (subBucket + 1) * width - 1;
+    }
+}
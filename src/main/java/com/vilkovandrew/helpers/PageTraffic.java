@@ -0,0 +1,148 @@
+package com.vilkovandrew.helpers;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chromium.HasCdp;
+
+import java.util.Collections;
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * Класс представляющий объём сетевого трафика текущей страницы.
+ * <p>
+ * Данные берутся из Resource Timing API браузера. Для ресурсов с других доменов без заголовка
+ * Timing-Allow-Origin браузер не сообщает размер, поэтому значение является нижней оценкой.
+ * </p>
+ * <p>
+ * Каталог переключает страницы без перезагрузки документа, поэтому каждый замер учитывает только ресурсы,
+ * загруженные после предыдущего замера в том же документе. Стандартный буфер браузера хранит лишь 250 записей,
+ * поэтому до загрузки документа его нужно расширить через {@link #install(HasCdp)}.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class PageTraffic {
+    /**
+     * Скрипт расширения буфера Resource Timing, выполняемый браузером до скриптов каждого нового документа.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final String SCRIPT_INSTALL = "performance.setResourceTimingBufferSize(100000);";
+
+    /**
+     * Скрипт подсчёта переданных байт и количества запросов с момента предыдущего замера в документе.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final String SCRIPT_TRAFFIC =
+            "var entries = performance.getEntriesByType('navigation').concat(performance.getEntriesByType('resource'));" +
+            "var bytes = 0, count = 0;" +
+            "for (var i = window.__pageTrafficMark || 0; i < entries.length; i++) {" +
+            "  bytes += entries[i].transferSize || 0; count++;" +
+            "}" +
+            "window.__pageTrafficMark = entries.length;" +
+            "return [bytes, count];";
+
+    /**
+     * Количество переданных байт
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final long bytes;
+
+    /**
+     * Количество сетевых запросов
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final long requests;
+
+    /**
+     * Конструктор класса {@link PageTraffic}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param bytes    количество переданных байт
+     * @param requests количество сетевых запросов
+     */
+    public PageTraffic(long bytes, long requests) {
+        this.bytes = bytes;
+        this.requests = requests;
+    }
+
+    /**
+     * Расширение буфера Resource Timing для всех документов, которые браузер откроет после вызова.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param driver драйвер с доступом к DevTools, например {@link org.openqa.selenium.chrome.ChromeDriver}
+     */
+    public static void install(HasCdp driver) {
+        driver.executeCdpCommand("Page.addScriptToEvaluateOnNewDocument",
+                Collections.singletonMap("source", SCRIPT_INSTALL));
+    }
+
+    /**
+     * Получение трафика текущей страницы браузера с момента предыдущего замера.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param driver экземпляр класса {@link WebDriver}
+     * @return трафик страницы, нулевой если браузер не смог его посчитать
+     */
+    public static PageTraffic measure(WebDriver driver) {
+        try {
+            List<?> result = (List<?>) ((JavascriptExecutor) driver).executeScript(SCRIPT_TRAFFIC);
+            return new PageTraffic(((Number) result.get(0)).longValue(), ((Number) result.get(1)).longValue());
+        } catch (WebDriverException | ClassCastException e) {
+            return new PageTraffic(0, 0);
+        }
+    }
+
+    /**
+     * Получение количества переданных байт.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return количество переданных байт
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Получение количества сетевых запросов.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return количество сетевых запросов
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * Получение строкового представления трафика.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return строковое представление трафика
+     */
+    @Override
+    public String toString() {
+        return format("%d КБ, запросов: %d", bytes / 1024, requests);
+    }
+}
@@ -0,0 +1,23 @@
+package com.vilkovandrew.helpers;
+
+/**
+ * Класс предоставляющий режимы записи проверок товаров в отчёт Allure.
+ *
+ * @author Вилков Андрей
+ */
+public enum ReportMode {
+    /**
+     * Отдельный шаг на каждый товар и каждый фильтр
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    VERBOSE,
+    /**
+     * Один шаг на страницу со сводной таблицей, полные шаги только для несоответствующих товаров
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    AGGREGATED;
+}
@@ -1,5 +1,7 @@
 package com.vilkovandrew.helpers;
 
+import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
 import io.qameta.allure.Attachment;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
@@ -7,15 +9,96 @@ import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.interactions.Actions;
 
-import java.io.File;
-import java.nio.file.Files;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Вспомогательный класс для создания скриншотов.
+ * <p>
+ * Методы {@code attach} забирают у браузера только байты изображения, а уменьшение, сжатие в JPEG
+ * и запись вложения Allure выполняют в фоновом потоке. Одинаковые по содержимому скриншоты
+ * прикладываются один раз в пределах теста.
+ * </p>
+ * <p>
+ * Незавершённые записи и приложенные скриншоты хранятся отдельно для потока теста, поэтому тесты,
+ * выполняемые параллельно, не ждут и не подавляют скриншоты друг друга. {@link #flush()} завершает
+ * записи только своего теста и очищает его состояние.
+ * </p>
  *
  * @author Вилков Андрей
  */
 public class Screenshoter {
+    /**
+     * Качество сжатия JPEG
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final float JPEG_QUALITY = 0.8f;
+
+    /**
+     * Коэффициент уменьшения изображения, если оно не помещается в максимальный размер вложения
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final double DOWNSCALE_STEP = 0.75;
+
+    /**
+     * Максимальное количество попыток уменьшения изображения
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final int MAX_DOWNSCALE_ATTEMPTS = 6;
+
+    /**
+     * Поток обработки и записи скриншотов.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "screenshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Незавершённые задачи записи скриншотов текущего теста.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final ThreadLocal<Queue<Future<?>>> PENDING = ThreadLocal.withInitial(ArrayDeque::new);
+
+    /**
+     * Соответствие SHA-256 уже приложенных в текущем тесте скриншотов именам их вложений.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final ThreadLocal<Map<String, String>> ATTACHED = ThreadLocal.withInitial(HashMap::new);
+
     /**
      * Создание скриншота страницы.
      * <p>
@@ -26,13 +109,7 @@ public class Screenshoter {
      */
     @Attachment
     public static byte[] getScreen(WebDriver driver) {
-        File screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
-        try {
-            return Files.readAllBytes(screenshot.toPath());
-        } catch (Exception e) {
-            Assertions.fail("Не удалось получить скриншот", e);
-        }
-        return new byte[0];
+        return ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
     }
 
     /**
@@ -47,13 +124,204 @@ public class Screenshoter {
     @Attachment
     public static byte[] getScreen(WebDriver driver, WebElement element) {
         new Actions(driver).moveToElement(element).perform();
+        return element.getScreenshotAs(OutputType.BYTES);
+    }
 
-        File screenshot = element.getScreenshotAs(OutputType.FILE);
+    /**
+     * Создание скриншота элемента с обработкой и записью вложения в фоне.
+     * <p>
+     * Если {@link AppProperties#isScreenshotAsync()} выключено, работает как {@link #getScreen(WebDriver, WebElement)}.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param driver  экземпляр класса {@link WebDriver}
+     * @param element экземпляр класса {@link WebElement}, скриншот которого будет сделан
+     */
+    public static void attach(WebDriver driver, WebElement element) {
+        if (!Properties.appProperties.isScreenshotAsync()) {
+            getScreen(driver, element);
+            return;
+        }
+        attach(driver, element, "Скриншот элемента");
+    }
+
+    /**
+     * Создание скриншота элемента с заданным именем вложения.
+     * <p>
+     * При включённом {@link AppProperties#isScreenshotAsync()} изображение обрабатывается и записывается в фоне,
+     * иначе прикладывается сразу без обработки.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param driver  экземпляр класса {@link WebDriver}
+     * @param element экземпляр класса {@link WebElement}, скриншот которого будет сделан
+     * @param name    имя вложения
+     * @return имя вложения, в котором находится скриншот, для повторяющегося скриншота - имя первого вложения
+     */
+    public static String attach(WebDriver driver, WebElement element, String name) {
+        new Actions(driver).moveToElement(element).perform();
+        byte[] image = element.getScreenshotAs(OutputType.BYTES);
+        if (!Properties.appProperties.isScreenshotAsync()) {
+            Allure.getLifecycle().addAttachment(name, "image/png", ".png", image);
+            return name;
+        }
+        return attachAsync(name, image);
+    }
+
+    /**
+     * Ожидание записи скриншотов текущего теста, отправленных в фоновую обработку, и сброс состояния теста.
+     * <p>
+     * Вызывается в конце теста в том же потоке, в котором делались скриншоты.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    public static void flush() {
+        Queue<Future<?>> pending = PENDING.get();
+        try {
+            Future<?> future;
+            while ((future = pending.poll()) != null) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException e) {
+                    Assertions.fail("Не удалось записать скриншот", e.getCause());
+                }
+            }
+        } finally {
+            PENDING.remove();
+            ATTACHED.remove();
+        }
+    }
+
+    /**
+     * Регистрация вложения в текущем шаге и отправка изображения в фоновую обработку.
+     * <p>
+     * Вложение регистрируется в потоке вызова, поэтому попадает в тот же шаг, что и {@link Attachment}.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param name  имя вложения
+     * @param image PNG изображение, полученное от браузера
+     * @return имя вложения, для повторяющегося в тесте скриншота - имя первого вложения
+     */
+    private static String attachAsync(String name, byte[] image) {
+        String attached = ATTACHED.get().putIfAbsent(sha256(image), name);
+        if (attached != null) return attached;
+        AllureLifecycle lifecycle = Allure.getLifecycle();
+        String source = lifecycle.prepareAttachment(name, "image/jpeg", ".jpg");
+        long maxBytes = Properties.appProperties.getScreenshotMaxBytes();
+        int maxWidth = Properties.appProperties.getScreenshotMaxWidth();
+        PENDING.get().add(EXECUTOR.submit(() -> {
+            lifecycle.writeAttachment(source, new ByteArrayInputStream(compress(image, maxWidth, maxBytes)));
+            return null;
+        }));
+        return name;
+    }
+
+    /**
+     * Уменьшение и сжатие изображения в JPEG.
+     * <p>
+     * Изображение уменьшается до максимальной ширины, затем пошагово, пока не поместится в максимальный размер.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param png      PNG изображение
+     * @param maxWidth максимальная ширина в пикселях
+     * @param maxBytes максимальный размер в байтах
+     * @return JPEG изображение
+     * @throws IOException если изображение не удалось прочитать или записать
+     */
+    private static byte[] compress(byte[] png, int maxWidth, long maxBytes) throws IOException {
+        BufferedImage source = ImageIO.read(new ByteArrayInputStream(png));
+        if (source == null) throw new IOException("Неизвестный формат скриншота");
+        double scale = Math.min(1.0, (double) maxWidth / source.getWidth());
+        byte[] jpeg = encodeJpeg(scale(source, scale));
+        for (int attempt = 0; jpeg.length > maxBytes && attempt < MAX_DOWNSCALE_ATTEMPTS; attempt++) {
+            scale *= DOWNSCALE_STEP;
+            jpeg = encodeJpeg(scale(source, scale));
+        }
+        return jpeg;
+    }
+
+    /**
+     * Масштабирование изображения с переводом в RGB без прозрачности.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param source исходное изображение
+     * @param scale  коэффициент масштабирования
+     * @return масштабированное изображение
+     */
+    private static BufferedImage scale(BufferedImage source, double scale) {
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * Сжатие изображения в JPEG.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param image изображение
+     * @return JPEG изображение
+     * @throws IOException если изображение не удалось записать
+     */
+    private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(JPEG_QUALITY);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Вычисление SHA-256 содержимого.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param content содержимое
+     * @return SHA-256 в шестнадцатеричном виде
+     */
+    private static String sha256(byte[] content) {
         try {
-            return Files.readAllBytes(screenshot.toPath());
-        } catch (Exception e) {
-            Assertions.fail("Не удалось получить скриншот", e);
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(content)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
-        return new byte[0];
     }
 }
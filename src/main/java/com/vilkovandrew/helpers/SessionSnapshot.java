@@ -0,0 +1,290 @@
+package com.vilkovandrew.helpers;
+
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Снимок состояния сессии браузера: адрес страницы, cookies, localStorage и sessionStorage.
+ * <p>
+ * Снимок делается после навигации до страницы категории и восстанавливается в новую или очищенную
+ * сессию из пула, после чего сценарий начинается сразу со страницы категории.
+ * </p>
+ *
+ * @author Вилков Андрей
+ * @see SessionSnapshots
+ */
+public class SessionSnapshot {
+    /**
+     * Скрипт получения содержимого localStorage и sessionStorage.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final String SCRIPT_READ_STORAGE =
+            "var read = function (storage) {" +
+            "  var result = {};" +
+            "  for (var i = 0; i < storage.length; i++) { var key = storage.key(i); result[key] = storage.getItem(key); }" +
+            "  return result;" +
+            "};" +
+            "return [read(window.localStorage), read(window.sessionStorage)];";
+
+    /**
+     * Скрипт записи содержимого localStorage и sessionStorage.
+     * <p>
+     * Аргументы: содержимое localStorage и sessionStorage.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final String SCRIPT_WRITE_STORAGE =
+            "var write = function (storage, values) {" +
+            "  Object.keys(values).forEach(function (key) { storage.setItem(key, values[key]); });" +
+            "};" +
+            "write(window.localStorage, arguments[0]);" +
+            "write(window.sessionStorage, arguments[1]);";
+
+    /**
+     * Адрес страницы, на которой сделан снимок
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final String url;
+
+    /**
+     * Cookies сессии в виде полей JSON
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final List<Map<String, Object>> cookies;
+
+    /**
+     * Содержимое localStorage
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final Map<String, String> localStorage;
+
+    /**
+     * Содержимое sessionStorage
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final Map<String, String> sessionStorage;
+
+    /**
+     * Время создания снимка в миллисекундах от начала эпохи
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final long createdAt;
+
+    /**
+     * Конструктор класса {@link SessionSnapshot}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param url            адрес страницы
+     * @param cookies        cookies в виде полей JSON
+     * @param localStorage   содержимое localStorage
+     * @param sessionStorage содержимое sessionStorage
+     * @param createdAt      время создания снимка в миллисекундах от начала эпохи
+     */
+    private SessionSnapshot(String url, List<Map<String, Object>> cookies, Map<String, String> localStorage,
+                            Map<String, String> sessionStorage, long createdAt) {
+        this.url = url;
+        this.cookies = cookies;
+        this.localStorage = localStorage;
+        this.sessionStorage = sessionStorage;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Создание снимка текущего состояния сессии.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param driver экземпляр класса {@link WebDriver}
+     * @return снимок сессии
+     */
+    public static SessionSnapshot capture(WebDriver driver) {
+        List<Map<String, Object>> cookies = new ArrayList<>();
+        for (Cookie cookie : driver.manage().getCookies()) {
+            Map<String, Object> fields = new LinkedHashMap<>();
+            fields.put("name", cookie.getName());
+            fields.put("value", cookie.getValue());
+            fields.put("domain", cookie.getDomain());
+            fields.put("path", cookie.getPath());
+            if (cookie.getExpiry() != null) fields.put("expiry", cookie.getExpiry().getTime());
+            fields.put("secure", cookie.isSecure());
+            fields.put("httpOnly", cookie.isHttpOnly());
+            if (cookie.getSameSite() != null) fields.put("sameSite", cookie.getSameSite());
+            cookies.add(fields);
+        }
+        List<?> storage = (List<?>) ((JavascriptExecutor) driver).executeScript(SCRIPT_READ_STORAGE);
+        return new SessionSnapshot(driver.getCurrentUrl(), cookies,
+                toStringMap(storage.get(0)), toStringMap(storage.get(1)), System.currentTimeMillis());
+    }
+
+    /**
+     * Восстановление снимка в сессию и переход на страницу снимка.
+     * <p>
+     * Cookies и хранилища можно записать только находясь на странице того же сайта, поэтому сначала открывается
+     * лёгкая страница сайта (favicon). Cookies, которые браузер отказывается принять для этого сайта, и cookies
+     * с истёкшим сроком пропускаются.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param driver экземпляр класса {@link WebDriver}
+     */
+    public void restore(WebDriver driver) {
+        URI uri = URI.create(url);
+        driver.get(uri.getScheme() + "://" + uri.getRawAuthority() + "/favicon.ico");
+        long now = System.currentTimeMillis();
+        for (Map<String, Object> fields : cookies) {
+            Object expiry = fields.get("expiry");
+            if (expiry instanceof Number && ((Number) expiry).longValue() <= now) continue;
+            Cookie.Builder builder = new Cookie.Builder(String.valueOf(fields.get("name")), String.valueOf(fields.get("value")))
+                    .domain((String) fields.get("domain"))
+                    .path((String) fields.get("path"))
+                    .isSecure(Boolean.TRUE.equals(fields.get("secure")))
+                    .isHttpOnly(Boolean.TRUE.equals(fields.get("httpOnly")));
+            if (expiry instanceof Number) builder.expiresOn(new Date(((Number) expiry).longValue()));
+            if (fields.get("sameSite") != null) builder.sameSite(String.valueOf(fields.get("sameSite")));
+            try {
+                driver.manage().addCookie(builder.build());
+            } catch (WebDriverException ignored) {
+                // Cookie другого сайта или отклонённая браузером, без неё сессия продолжит работу
+            }
+        }
+        ((JavascriptExecutor) driver).executeScript(SCRIPT_WRITE_STORAGE, localStorage, sessionStorage);
+        driver.get(url);
+    }
+
+    /**
+     * Проверка истечения срока жизни снимка.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param ttlMillis срок жизни снимка в миллисекундах
+     * @return true если снимок старше срока жизни
+     */
+    public boolean isExpired(long ttlMillis) {
+        return System.currentTimeMillis() - createdAt > ttlMillis;
+    }
+
+    /**
+     * Получение адреса страницы снимка.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return адрес страницы
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Получение времени создания снимка.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return время создания в миллисекундах от начала эпохи
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Получение количества cookies в снимке.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return количество cookies
+     */
+    public int getCookieCount() {
+        return cookies.size();
+    }
+
+    /**
+     * Преобразование снимка в поля JSON.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return поля снимка
+     */
+    public Map<String, Object> toJson() {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("url", url);
+        json.put("createdAt", createdAt);
+        json.put("cookies", cookies);
+        json.put("localStorage", localStorage);
+        json.put("sessionStorage", sessionStorage);
+        return json;
+    }
+
+    /**
+     * Создание снимка из полей JSON.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param json поля снимка, полученные из {@link #toJson()}
+     * @return снимок сессии
+     */
+    public static SessionSnapshot fromJson(Map<String, Object> json) {
+        List<Map<String, Object>> cookies = new ArrayList<>();
+        Object cookieList = json.get("cookies");
+        if (cookieList instanceof List) {
+            for (Object cookie : (List<?>) cookieList) {
+                Map<String, Object> fields = new LinkedHashMap<>();
+                ((Map<?, ?>) cookie).forEach((key, value) -> fields.put(String.valueOf(key), value));
+                cookies.add(fields);
+            }
+        }
+        return new SessionSnapshot(String.valueOf(json.get("url")), cookies,
+                toStringMap(json.get("localStorage")), toStringMap(json.get("sessionStorage")),
+                ((Number) json.get("createdAt")).longValue());
+    }
+
+    /**
+     * Преобразование объекта JSON в словарь строк.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param value объект JSON
+     * @return словарь строк, пустой если значение не является объектом
+     */
+    private static Map<String, String> toStringMap(Object value) {
+        if (!(value instanceof Map)) return Collections.emptyMap();
+        Map<String, String> result = new HashMap<>();
+        ((Map<?, ?>) value).forEach((key, item) -> result.put(String.valueOf(key), String.valueOf(item)));
+        return result;
+    }
+}
@@ -0,0 +1,187 @@
+package com.vilkovandrew.helpers;
+
+import io.qameta.allure.Allure;
+import io.qameta.allure.model.Status;
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * Хранилище снимков сессий браузера по разделу каталога.
+ * <p>
+ * Снимки хранятся в памяти и в файлах JSON в каталоге {@link AppProperties#getSessionSnapshotDir()},
+ * поэтому используются и последующими сценариями, и повторными запусками. Снимок старше
+ * {@link AppProperties#getSessionSnapshotTtl()} считается устаревшим и не выдаётся.
+ * </p>
+ *
+ * @author Вилков Андрей
+ * @see SessionSnapshot
+ */
+public class SessionSnapshots {
+    /**
+     * Снимки, прочитанные или сделанные в этом запуске, по ключу
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final Map<String, SessionSnapshot> SNAPSHOTS = new ConcurrentHashMap<>();
+
+    /**
+     * Сериализатор JSON
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final Json JSON = new Json();
+
+    /**
+     * Закрытый конструктор, класс содержит только статические методы.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private SessionSnapshots() {
+    }
+
+    /**
+     * Получение ключа снимка для раздела каталога.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param url         адрес сайта, с которого начинается навигация
+     * @param sectionName имя категории каталога
+     * @param itemName    имя раздела категории
+     * @return ключ снимка
+     */
+    public static String getKey(String url, String sectionName, String itemName) {
+        return url + '\n' + sectionName + '\n' + itemName;
+    }
+
+    /**
+     * Получение действующего снимка по ключу.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param key ключ снимка
+     * @return {@link Optional} со снимком или пустой, если снимка нет, он устарел или снимки отключены
+     */
+    public static Optional<SessionSnapshot> get(String key) {
+        long ttl = TimeUnit.MINUTES.toMillis(Properties.appProperties.getSessionSnapshotTtl());
+        if (ttl <= 0) return Optional.empty();
+        SessionSnapshot snapshot = SNAPSHOTS.computeIfAbsent(key, SessionSnapshots::read);
+        if (snapshot == null || !snapshot.isExpired(ttl)) return Optional.ofNullable(snapshot);
+        SNAPSHOTS.remove(key, snapshot);
+        return Optional.empty();
+    }
+
+    /**
+     * Сохранение снимка по ключу.
+     * <p>
+     * Снимок - только ускорение входа, поэтому ошибка записи файла не прерывает тест: она пишется в отчёт
+     * шагом, а снимок остаётся в памяти до конца запуска.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param key      ключ снимка
+     * @param snapshot снимок сессии
+     */
+    public static void put(String key, SessionSnapshot snapshot) {
+        if (Properties.appProperties.getSessionSnapshotTtl() <= 0) return;
+        SNAPSHOTS.put(key, snapshot);
+        Path file = getFile(key);
+        try {
+            Files.createDirectories(file.getParent());
+            Files.write(file, JSON.toJson(snapshot.toJson()).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Allure.step(format("Не удалось записать снимок сессии '%s', снимок останется только в памяти: %s",
+                    file, e), Status.BROKEN);
+        }
+    }
+
+    /**
+     * Удаление снимка по ключу, например после неудачного восстановления.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param key ключ снимка
+     */
+    public static void remove(String key) {
+        SNAPSHOTS.remove(key);
+        try {
+            Files.deleteIfExists(getFile(key));
+        } catch (IOException ignored) {
+            // Файл будет перезаписан следующим снимком
+        }
+    }
+
+    /**
+     * Чтение снимка из файла.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param key ключ снимка
+     * @return снимок или null, если файла нет или его не удалось прочитать
+     */
+    private static SessionSnapshot read(String key) {
+        Path file = getFile(key);
+        if (!Files.exists(file)) return null;
+        try {
+            String json = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            return SessionSnapshot.fromJson(JSON.toType(json, Json.MAP_TYPE));
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Получение файла снимка по ключу.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param key ключ снимка
+     * @return путь к файлу снимка
+     */
+    private static Path getFile(String key) {
+        return Paths.get(Properties.appProperties.getSessionSnapshotDir()).resolve(sha1(key) + ".json");
+    }
+
+    /**
+     * Получение SHA-1 хеша строки.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param value строка
+     * @return шестнадцатеричное представление хеша
+     */
+    private static String sha1(String value) {
+        try {
+            StringBuilder builder = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-1").digest(value.getBytes(StandardCharsets.UTF_8))) {
+                builder.append(format("%02x", b));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
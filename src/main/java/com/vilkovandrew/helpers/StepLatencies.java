@@ -0,0 +1,311 @@
+package com.vilkovandrew.helpers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+import static java.lang.String.format;
+
+/**
+ * Реестр гистограмм задержек шагов по сценариям.
+ * <p>
+ * Заполняется аспектом {@link StepTimingAspect}. Сценарий задаётся для потока теста
+ * через {@link #setScenario(String)}, шаги вне сценария попадают в сценарий {@value #NO_SCENARIO}.
+ * </p>
+ * <p>
+ * Сценарий и шаг хранятся в потоке, поэтому задачи, которые тест отдаёт в пулы потоков, оборачиваются
+ * через {@link #propagate(Runnable)}, {@link #propagate(Callable)} или {@link #propagating(Executor)}:
+ * тогда работа в пуле учитывается в сценарии и шаге, из которых задача была отправлена.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class StepLatencies {
+    /**
+     * Имя сценария для шагов, выполненных вне теста
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    public static final String NO_SCENARIO = "-";
+
+    /**
+     * Заголовок CSV с задержками
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final String CSV_HEADER = "scenario,step,count,p50_ms,p90_ms,p99_ms,max_ms";
+
+    /**
+     * Гистограммы по сценариям и шагам
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final ConcurrentMap<String, ConcurrentMap<String, LatencyHistogram>> HISTOGRAMS =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Сценарий текущего потока
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final ThreadLocal<String> SCENARIO = ThreadLocal.withInitial(() -> NO_SCENARIO);
+
+    /**
+     * Стек выполняемых шагов текущего потока
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final ThreadLocal<Deque<String>> STEPS = ThreadLocal.withInitial(ArrayDeque::new);
+
+    /**
+     * Закрытый конструктор, класс содержит только статические методы.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private StepLatencies() {
+    }
+
+    /**
+     * Установка сценария для текущего потока.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param scenario имя сценария
+     */
+    public static void setScenario(String scenario) {
+        SCENARIO.set(scenario);
+    }
+
+    /**
+     * Сброс сценария текущего потока.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    public static void clearScenario() {
+        SCENARIO.remove();
+    }
+
+    /**
+     * Получение сценария текущего потока.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return имя сценария
+     */
+    public static String getScenario() {
+        return SCENARIO.get();
+    }
+
+    /**
+     * Перенос сценария и выполняемого шага текущего потока в задачу, выполняемую другим потоком.
+     * <p>
+     * Сценарий и шаг запоминаются в момент вызова, устанавливаются на время выполнения задачи
+     * и восстанавливаются после неё.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param task задача
+     * @return задача, выполняемая в сценарии и шаге текущего потока
+     */
+    public static Runnable propagate(Runnable task) {
+        String scenario = SCENARIO.get();
+        String step = STEPS.get().peek();
+        return () -> {
+            String previous = SCENARIO.get();
+            Deque<String> steps = STEPS.get();
+            SCENARIO.set(scenario);
+            if (step != null) steps.push(step);
+            try {
+                task.run();
+            } finally {
+                if (step != null) steps.poll();
+                SCENARIO.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Перенос сценария и выполняемого шага текущего потока в задачу с результатом, выполняемую другим потоком.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param task задача
+     * @param <T>  тип результата задачи
+     * @return задача, выполняемая в сценарии и шаге текущего потока
+     * @see #propagate(Runnable)
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        String scenario = SCENARIO.get();
+        String step = STEPS.get().peek();
+        return () -> {
+            String previous = SCENARIO.get();
+            Deque<String> steps = STEPS.get();
+            SCENARIO.set(scenario);
+            if (step != null) steps.push(step);
+            try {
+                return task.call();
+            } finally {
+                if (step != null) steps.poll();
+                SCENARIO.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Получение исполнителя, который переносит в задачи сценарий и шаг отправившего их потока.
+     * <p>
+     * Подходит для {@link java.util.concurrent.CompletableFuture#supplyAsync(java.util.function.Supplier, Executor)}.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param executor исполнитель задач
+     * @return исполнитель, оборачивающий задачи через {@link #propagate(Runnable)}
+     */
+    public static Executor propagating(Executor executor) {
+        return task -> executor.execute(propagate(task));
+    }
+
+    /**
+     * Отметка начала шага в текущем потоке.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param step имя шага
+     */
+    public static void enterStep(String step) {
+        STEPS.get().push(step);
+    }
+
+    /**
+     * Отметка окончания последнего начатого шага в текущем потоке.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    public static void exitStep() {
+        STEPS.get().poll();
+    }
+
+    /**
+     * Получение выполняемого шага текущего потока.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return имя последнего начатого шага или {@value #NO_SCENARIO}, если шаг не выполняется
+     */
+    public static String getCurrentStep() {
+        String step = STEPS.get().peek();
+        return step == null ? NO_SCENARIO : step;
+    }
+
+    /**
+     * Запись задержки шага в сценарий текущего потока.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param step  имя шага
+     * @param nanos задержка в наносекундах
+     */
+    public static void record(String step, long nanos) {
+        HISTOGRAMS.computeIfAbsent(SCENARIO.get(), s -> new ConcurrentHashMap<>())
+                .computeIfAbsent(step, s -> new LatencyHistogram())
+                .record(nanos);
+    }
+
+    /**
+     * Получение задержек шагов сценария текущего потока в формате CSV.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return таблица задержек
+     */
+    public static String toCsv() {
+        StringBuilder csv = new StringBuilder(CSV_HEADER).append('\n');
+        appendRows(csv, SCENARIO.get(), HISTOGRAMS.get(SCENARIO.get()));
+        return csv.toString();
+    }
+
+    /**
+     * Запись задержек шагов всех сценариев в файл CSV.
+     * <p>
+     * Файл перезаписывается целиком, поэтому после каждого теста содержит данные всего прогона.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param file путь к файлу
+     */
+    public static synchronized void writeCsv(String file) {
+        StringBuilder csv = new StringBuilder(CSV_HEADER).append('\n');
+        new TreeMap<>(HISTOGRAMS).forEach((scenario, steps) -> appendRows(csv, scenario, steps));
+        try {
+            Path path = Paths.get(file);
+            if (path.getParent() != null) Files.createDirectories(path.getParent());
+            Files.write(path, csv.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Добавление строк сценария в таблицу задержек.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param csv      таблица задержек
+     * @param scenario имя сценария
+     * @param steps    гистограммы шагов сценария
+     */
+    private static void appendRows(StringBuilder csv, String scenario, Map<String, LatencyHistogram> steps) {
+        if (steps == null) return;
+        new TreeMap<>(steps).forEach((step, histogram) -> csv.append(format("\"%s\",\"%s\",%d,%s,%s,%s,%s%n",
+                scenario.replace("\"", "\"\""), step, histogram.getCount(),
+                toMillis(histogram.getPercentile(50)), toMillis(histogram.getPercentile(90)),
+                toMillis(histogram.getPercentile(99)), toMillis(histogram.getMax()))));
+    }
+
+    /**
+     * Перевод микросекунд в миллисекунды в текстовом виде.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param micros время в микросекундах
+     * @return время в миллисекундах с тремя знаками после точки
+     */
+    private static String toMillis(long micros) {
+        return format(Locale.ROOT, "%.3f", micros / 1000.0);
+    }
+}
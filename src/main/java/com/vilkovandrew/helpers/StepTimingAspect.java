@@ -0,0 +1,103 @@
+package com.vilkovandrew.helpers;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+
+/**
+ * Аспект замера времени шагов и методов страниц.
+ * <p>
+ * Вплетается при загрузке классов агентом AspectJ из настроек surefire, подключается через META-INF/aop.xml.
+ * Задержки записываются в {@link StepLatencies} с именем вида {@code Класс.метод}.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+@Aspect
+public class StepTimingAspect {
+    /**
+     * Методы, отмеченные {@link io.qameta.allure.Step}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    @Pointcut("execution(@io.qameta.allure.Step * *(..))")
+    public void stepMethod() {
+        //pointcut body, should be empty
+    }
+
+    /**
+     * Публичные методы страниц Яндекс Маркета.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    @Pointcut("execution(public * com.vilkovandrew.yandex.market.pages..*.*(..))")
+    public void pageMethod() {
+        //pointcut body, should be empty
+    }
+
+    /**
+     * Замер времени выполнения шага с отметкой его как текущего шага потока.
+     * <p>
+     * Время записывается и при выходе по исключению.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param joinPoint точка соединения
+     * @return результат метода
+     * @throws Throwable исключение метода
+     * @see StepLatencies#getCurrentStep()
+     */
+    @Around("stepMethod()")
+    public Object timeStep(ProceedingJoinPoint joinPoint) throws Throwable {
+        String name = getName(joinPoint);
+        StepLatencies.enterStep(name);
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            StepLatencies.record(name, System.nanoTime() - start);
+            StepLatencies.exitStep();
+        }
+    }
+
+    /**
+     * Замер времени выполнения метода страницы.
+     * <p>
+     * Время записывается и при выходе по исключению.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param joinPoint точка соединения
+     * @return результат метода
+     * @throws Throwable исключение метода
+     */
+    @Around("pageMethod() && !stepMethod()")
+    public Object timePageMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            StepLatencies.record(getName(joinPoint), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Получение имени метода вида {@code Класс.метод}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param joinPoint точка соединения
+     * @return имя метода
+     */
+    private static String getName(ProceedingJoinPoint joinPoint) {
+        return joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+    }
+}
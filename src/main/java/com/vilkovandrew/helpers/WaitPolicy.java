@@ -0,0 +1,97 @@
+package com.vilkovandrew.helpers;
+
+import java.time.Duration;
+import java.util.function.ToLongFunction;
+
+/**
+ * Класс предоставляющий политики ожидания с собственными таймаутами и интервалами опроса.
+ * <p>
+ * Значения берутся из {@link AppProperties}, неявное ожидание драйвера при этом равно нулю.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public enum WaitPolicy {
+    /**
+     * Ожидание появления элемента
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    PRESENCE(AppProperties::getPresenceTimeout, AppProperties::getPresencePoll),
+    /**
+     * Ожидание исчезновения элемента
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    ABSENCE(AppProperties::getAbsenceTimeout, AppProperties::getAbsencePoll),
+    /**
+     * Ожидание устаревания элемента после перерисовки
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    STALENESS(AppProperties::getStalenessTimeout, AppProperties::getStalenessPoll),
+    /**
+     * Ожидание готовности страницы или списка товаров
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    READINESS(AppProperties::getReadinessTimeout, AppProperties::getReadinessPoll);
+
+    /**
+     * Получение таймаута политики в миллисекундах
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final ToLongFunction<AppProperties> timeout;
+
+    /**
+     * Получение интервала опроса политики в миллисекундах
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final ToLongFunction<AppProperties> poll;
+
+    /**
+     * Конструктор {@link WaitPolicy}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param timeout получение таймаута в миллисекундах
+     * @param poll    получение интервала опроса в миллисекундах
+     */
+    WaitPolicy(ToLongFunction<AppProperties> timeout, ToLongFunction<AppProperties> poll) {
+        this.timeout = timeout;
+        this.poll = poll;
+    }
+
+    /**
+     * Получение таймаута политики.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return таймаут ожидания
+     */
+    public Duration getTimeout() {
+        return Duration.ofMillis(timeout.applyAsLong(Properties.appProperties));
+    }
+
+    /**
+     * Получение интервала опроса политики.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return интервал опроса
+     */
+    public Duration getPollInterval() {
+        return Duration.ofMillis(poll.applyAsLong(Properties.appProperties));
+    }
+}
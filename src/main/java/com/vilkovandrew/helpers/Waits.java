@@ -0,0 +1,233 @@
+package com.vilkovandrew.helpers;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Вспомогательный класс для явных ожиданий по политикам {@link WaitPolicy}.
+ * <p>
+ * Рассчитан на работу с нулевым неявным ожиданием драйвера: проверки наличия элемента
+ * через {@link #find(SearchContext, By)} и {@link #isAbsent(SearchContext, By)} не блокируются.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class Waits {
+    /**
+     * Переменная для хранения экземпляра класса {@link WebDriver}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final WebDriver driver;
+
+    /**
+     * Конструктор класса {@link Waits}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param driver экземпляр класса {@link WebDriver}
+     */
+    public Waits(WebDriver driver) {
+        this.driver = driver;
+    }
+
+    /**
+     * Ожидание выполнения условия по политике.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param policy    политика ожидания
+     * @param condition условие, выполненным считается результат отличный от null и false
+     * @param <T>       тип результата условия
+     * @return результат условия
+     */
+    public <T> T until(WaitPolicy policy, Function<? super WebDriver, T> condition) {
+        return new WebDriverWait(driver, policy.getTimeout(), policy.getPollInterval()).until(condition);
+    }
+
+    /**
+     * Выполнение асинхронного скрипта с собственным таймаутом.
+     * <p>
+     * Таймаут скриптов общий для сессии, а сессии переиспользуются {@link WebDriverPool},
+     * поэтому после выполнения восстанавливается прежнее значение.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param scriptTimeout таймаут выполнения скрипта
+     * @param script        асинхронный скрипт
+     * @param args          аргументы скрипта
+     * @return результат скрипта
+     */
+    public Object executeAsyncScript(Duration scriptTimeout, String script, Object... args) {
+        WebDriver.Timeouts timeouts = driver.manage().timeouts();
+        Duration previous = timeouts.getScriptTimeout();
+        timeouts.scriptTimeout(scriptTimeout);
+        try {
+            return ((JavascriptExecutor) driver).executeAsyncScript(script, args);
+        } finally {
+            timeouts.scriptTimeout(previous);
+        }
+    }
+
+    /**
+     * Ожидание появления элемента на странице.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param locator локатор элемента
+     * @return найденный элемент
+     */
+    public WebElement present(By locator) {
+        return until(WaitPolicy.PRESENCE, ExpectedConditions.presenceOfElementLocated(locator));
+    }
+
+    /**
+     * Ожидание появления элемента внутри другого элемента.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param context элемент, внутри которого выполняется поиск
+     * @param locator локатор элемента
+     * @return найденный элемент
+     */
+    public WebElement present(SearchContext context, By locator) {
+        return until(WaitPolicy.PRESENCE, d -> find(context, locator).orElse(null));
+    }
+
+    /**
+     * Ожидание появления хотя бы одного элемента на странице.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param locator локатор элементов
+     * @return найденные элементы
+     */
+    public List<WebElement> presentAll(By locator) {
+        return until(WaitPolicy.PRESENCE, ExpectedConditions.presenceOfAllElementsLocatedBy(locator));
+    }
+
+    /**
+     * Ожидание появления хотя бы одного элемента внутри другого элемента.
+     * <p>
+     * В отличие от {@link #presentAll(By)} не падает по таймауту, а возвращает пустой список.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param context элемент, внутри которого выполняется поиск
+     * @param locator локатор элементов
+     * @return найденные элементы или пустой список, если за время политики {@link WaitPolicy#PRESENCE} их не появилось
+     */
+    public List<WebElement> presentAllOrEmpty(SearchContext context, By locator) {
+        try {
+            return until(WaitPolicy.PRESENCE, d -> {
+                List<WebElement> elements = context.findElements(locator);
+                return elements.isEmpty() ? null : elements;
+            });
+        } catch (TimeoutException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Поиск элемента без ожидания.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param context элемент или драйвер, внутри которого выполняется поиск
+     * @param locator локатор элемента
+     * @return {@link Optional} с первым найденным элементом или пустой, если элемента нет
+     */
+    public Optional<WebElement> find(SearchContext context, By locator) {
+        List<WebElement> elements = context.findElements(locator);
+        return elements.isEmpty() ? Optional.empty() : Optional.of(elements.get(0));
+    }
+
+    /**
+     * Поиск элемента на странице без ожидания.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param locator локатор элемента
+     * @return {@link Optional} с первым найденным элементом или пустой, если элемента нет
+     */
+    public Optional<WebElement> find(By locator) {
+        return find(driver, locator);
+    }
+
+    /**
+     * Проверка отсутствия элемента без ожидания.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param context элемент или драйвер, внутри которого выполняется поиск
+     * @param locator локатор элемента
+     * @return true если элемента нет, в противном случае false
+     */
+    public boolean isAbsent(SearchContext context, By locator) {
+        return context.findElements(locator).isEmpty();
+    }
+
+    /**
+     * Ожидание исчезновения всех элементов по локатору.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param locator локатор элементов
+     */
+    public void absent(By locator) {
+        until(WaitPolicy.ABSENCE, d -> isAbsent(d, locator));
+    }
+
+    /**
+     * Ожидание устаревания элемента.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param element элемент, который должен быть удалён со страницы
+     */
+    public void stale(WebElement element) {
+        until(WaitPolicy.STALENESS, ExpectedConditions.stalenessOf(element));
+    }
+
+    /**
+     * Ожидание исчезновения элемента, если он есть на странице.
+     * <p>
+     * Если элемента нет, метод возвращается сразу.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param locator локатор элемента
+     */
+    public void staleIfPresent(By locator) {
+        find(locator).ifPresent(this::stale);
+    }
+}
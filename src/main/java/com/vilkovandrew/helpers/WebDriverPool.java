@@ -0,0 +1,523 @@
+package com.vilkovandrew.helpers;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chromium.HasCdp;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static java.lang.String.format;
+
+/**
+ * Пул сессий {@link WebDriver}, переиспользуемых между тестами.
+ * <p>
+ * Вместо запуска нового браузера на каждый тест сессия выдаётся из пула, а после теста
+ * очищается (cookies, localStorage, sessionStorage, лишние вкладки) и возвращается обратно.
+ * Сессия закрывается, если её не удалось очистить или она использована максимальное количество раз.
+ * </p>
+ * <p>
+ * При инициализации общего пула сразу запускается {@link AppProperties#getDriverPoolSize()} сессий,
+ * поэтому первые тесты не ждут запуска браузера.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class WebDriverPool {
+    /**
+     * Общий экземпляр пула.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static WebDriverPool instance;
+
+    /**
+     * Фабрика новых сессий.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final Supplier<WebDriver> factory;
+
+    /**
+     * Максимальное количество одновременно выданных сессий.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final int size;
+
+    /**
+     * Максимальное количество использований одной сессии.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final int maxReuse;
+
+    /**
+     * Семафор ограничивающий количество выданных сессий.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final Semaphore slots;
+
+    /**
+     * Свободные сессии, готовые к выдаче.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final ConcurrentLinkedDeque<PooledSession> idle = new ConcurrentLinkedDeque<>();
+
+    /**
+     * Выданные сессии.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final Map<WebDriver, PooledSession> leased = new ConcurrentHashMap<>();
+
+    /**
+     * Количество выдач уже запущенной сессии.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final AtomicLong hits = new AtomicLong();
+
+    /**
+     * Количество выдач, потребовавших запуска нового браузера.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Количество закрытых сессий.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final AtomicLong retired = new AtomicLong();
+
+    /**
+     * Количество сессий, запущенных заранее при инициализации.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final AtomicLong warmed = new AtomicLong();
+
+    /**
+     * Суммарное время ожидания выдачи сессии в наносекундах.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final AtomicLong leaseWaitNanos = new AtomicLong();
+
+    /**
+     * Максимальное время ожидания выдачи сессии в наносекундах.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final AtomicLong maxLeaseWaitNanos = new AtomicLong();
+
+    /**
+     * Конструктор класса {@link WebDriverPool}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param factory  фабрика новых сессий
+     * @param size     максимальное количество одновременно выданных сессий
+     * @param maxReuse максимальное количество использований одной сессии
+     */
+    public WebDriverPool(Supplier<WebDriver> factory, int size, int maxReuse) {
+        this.factory = factory;
+        this.size = size;
+        this.maxReuse = maxReuse;
+        this.slots = new Semaphore(size, true);
+    }
+
+    /**
+     * Инициализация общего пула, если он ещё не создан.
+     * <p>
+     * Размер пула и количество переиспользований берутся из {@link AppProperties}.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param factory фабрика новых сессий
+     * @return общий экземпляр пула
+     */
+    public static synchronized WebDriverPool init(Supplier<WebDriver> factory) {
+        if (instance == null) {
+            instance = new WebDriverPool(factory,
+                    Properties.appProperties.getDriverPoolSize(),
+                    Properties.appProperties.getDriverPoolMaxReuse());
+            Runtime.getRuntime().addShutdownHook(new Thread(instance::shutdown));
+            instance.warmUp();
+        }
+        return instance;
+    }
+
+    /**
+     * Запуск сессий до заполнения пула.
+     * <p>
+     * Сессии запускаются параллельно. Сессия, которую не удалось запустить, будет запущена при выдаче,
+     * и ошибка запуска проявится в тесте, которому она нужна.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    public void warmUp() {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, size), r -> {
+            Thread thread = new Thread(r, "webdriver-warm-up");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<CompletableFuture<Void>> sessions = new ArrayList<>();
+            for (int i = idle.size() + leased.size(); i < size; i++) {
+                sessions.add(CompletableFuture.runAsync(() -> idle.offerLast(new PooledSession(factory.get())), executor));
+            }
+            for (CompletableFuture<Void> session : sessions) {
+                try {
+                    session.join();
+                    warmed.incrementAndGet();
+                } catch (CompletionException ignored) {
+                    // Сессия будет запущена при выдаче
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Получение общего пула.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return общий экземпляр пула
+     */
+    public static synchronized WebDriverPool getInstance() {
+        if (instance == null)
+            Assertions.fail("Пул сессий WebDriver не инициализирован");
+        return instance;
+    }
+
+    /**
+     * Получение сессии из пула без ожидания.
+     * <p>
+     * Используется для дополнительных сессий, без которых работа может продолжиться: если свободного места
+     * в пуле нет, сессия не выдаётся и тест не блокирует соседние тесты.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return {@link Optional} с экземпляром класса {@link WebDriver} или пустой, если свободного места нет
+     */
+    public Optional<WebDriver> tryLease() {
+        if (!slots.tryAcquire()) return Optional.empty();
+        try {
+            return Optional.of(take());
+        } catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Получение сессии из пула с ожиданием свободного места.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return экземпляр класса {@link WebDriver}
+     */
+    public WebDriver lease() {
+        long start = System.nanoTime();
+        try {
+            if (!slots.tryAcquire(Properties.appProperties.getDriverPoolLeaseTimeout(), TimeUnit.SECONDS))
+                Assertions.fail(format("Не дождались свободной сессии WebDriver за %d с",
+                        Properties.appProperties.getDriverPoolLeaseTimeout()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Assertions.fail("Ожидание сессии WebDriver прервано", e);
+        }
+        long wait = System.nanoTime() - start;
+        leaseWaitNanos.addAndGet(wait);
+        maxLeaseWaitNanos.accumulateAndGet(wait, Math::max);
+        try {
+            return take();
+        } catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Возврат сессии в пул.
+     * <p>
+     * Сессия очищается и возвращается в список свободных или закрывается,
+     * если очистка не удалась либо достигнут лимит переиспользования.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param driver ранее выданный экземпляр класса {@link WebDriver}, null если выдача не удалась
+     */
+    public void release(WebDriver driver) {
+        if (driver == null) return;
+        PooledSession session = leased.remove(driver);
+        if (session == null) return;
+        try {
+            if (session.uses < maxReuse && reset(driver)) {
+                idle.offerFirst(session);
+            } else {
+                quit(driver);
+            }
+        } finally {
+            slots.release();
+        }
+    }
+
+    /**
+     * Закрытие всех сессий пула, свободных и выданных.
+     * <p>
+     * Вызывается при остановке JVM: выданные в этот момент сессии уже не вернутся в пул,
+     * и без закрытия их процессы chromedriver и Chrome остались бы запущенными.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    public void shutdown() {
+        PooledSession session;
+        while ((session = idle.pollFirst()) != null) {
+            quit(session.driver);
+        }
+        for (WebDriver driver : new ArrayList<>(leased.keySet())) {
+            if (leased.remove(driver) != null) quit(driver);
+        }
+    }
+
+    /**
+     * Получение количества выдач уже запущенной сессии.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return количество попаданий в пул
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Получение количества выдач, потребовавших запуска нового браузера.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return количество промахов пула
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Получение суммарного времени ожидания выдачи сессий.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return время ожидания в миллисекундах
+     */
+    public long getLeaseWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(leaseWaitNanos.get());
+    }
+
+    /**
+     * Получение максимального времени ожидания выдачи сессии.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return время ожидания в миллисекундах
+     */
+    public long getMaxLeaseWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLeaseWaitNanos.get());
+    }
+
+    /**
+     * Получение статистики пула в текстовом виде.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return статистика пула
+     */
+    public String getStatistics() {
+        return format("Размер пула: %d%n" +
+                        "Выдано сейчас: %d, свободно: %d%n" +
+                        "Запущено заранее: %d%n" +
+                        "Попаданий: %d, промахов: %d, закрыто сессий: %d%n" +
+                        "Ожидание выдачи: всего %d мс, максимум %d мс",
+                size, leased.size(), idle.size(), warmed.get(), getHits(), getMisses(), retired.get(),
+                getLeaseWaitMillis(), getMaxLeaseWaitMillis());
+    }
+
+    /**
+     * Получение свободной сессии или запуск новой.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return экземпляр класса {@link WebDriver}
+     */
+    private WebDriver take() {
+        PooledSession session = idle.pollFirst();
+        if (session != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            session = new PooledSession(factory.get());
+        }
+        session.uses++;
+        leased.put(session.driver, session);
+        return session.driver;
+    }
+
+    /**
+     * Очистка состояния сессии перед повторной выдачей.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param driver экземпляр класса {@link WebDriver}
+     * @return true если сессию удалось очистить, в противном случае false
+     */
+    private boolean reset(WebDriver driver) {
+        try {
+            List<String> handles = new ArrayList<>(driver.getWindowHandles());
+            for (String handle : handles.subList(1, handles.size())) {
+                driver.switchTo().window(handle).close();
+            }
+            driver.switchTo().window(handles.get(0));
+            if (driver.getCurrentUrl().startsWith("http"))
+                ((JavascriptExecutor) driver).executeScript("window.localStorage.clear(); window.sessionStorage.clear();");
+            driver.manage().deleteAllCookies();
+            if (driver instanceof HasCdp) {
+                HasCdp cdp = (HasCdp) driver;
+                cdp.executeCdpCommand("Network.clearBrowserCookies", Collections.emptyMap());
+                Map<String, Object> storage = new HashMap<>();
+                storage.put("origin", getOrigin(Properties.appProperties.getYaMarketUrl()));
+                storage.put("storageTypes", "all");
+                cdp.executeCdpCommand("Storage.clearDataForOrigin", storage);
+            }
+            driver.get("about:blank");
+            return true;
+        } catch (WebDriverException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Получение origin из URL.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param url адрес страницы
+     * @return origin в виде 'схема://хост[:порт]'
+     */
+    private static String getOrigin(String url) {
+        try {
+            URL parsed = new URL(url);
+            return parsed.getProtocol() + "://" + parsed.getAuthority();
+        } catch (Exception e) {
+            return url;
+        }
+    }
+
+    /**
+     * Закрытие сессии без возврата в пул.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param driver экземпляр класса {@link WebDriver}
+     */
+    private void quit(WebDriver driver) {
+        retired.incrementAndGet();
+        try {
+            driver.quit();
+        } catch (WebDriverException ignored) {
+            // Сессия уже недоступна, закрывать нечего
+        }
+    }
+
+    /**
+     * Сессия пула со счётчиком использований.
+     *
+     * @author Вилков Андрей
+     */
+    private static class PooledSession {
+        /**
+         * Экземпляр класса {@link WebDriver}.
+         * <p>
+         * Автор: Вилков Андрей
+         * </p>
+         */
+        private final WebDriver driver;
+
+        /**
+         * Количество выдач сессии.
+         * <p>
+         * Автор: Вилков Андрей
+         * </p>
+         */
+        private int uses;
+
+        /**
+         * Конструктор класса {@link PooledSession}.
+         * <p>
+         * Автор: Вилков Андрей
+         * </p>
+         *
+         * @param driver экземпляр класса {@link WebDriver}
+         */
+        private PooledSession(WebDriver driver) {
+            this.driver = driver;
+        }
+    }
+}
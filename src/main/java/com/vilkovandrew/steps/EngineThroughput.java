@@ -0,0 +1,163 @@
+package com.vilkovandrew.steps;
+
+import com.vilkovandrew.helpers.Properties;
+import com.vilkovandrew.yandex.market.helpers.CatalogEngineType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * Скорость обхода страниц результатов по способам чтения страниц, накопленная за все запуски.
+ * <p>
+ * Каждая проверка фильтров добавляет количество проверенных страниц и время их загрузки и проверки своим способом,
+ * отчёт показывает страницы в секунду по каждому способу и их отношение. Способы обычно сравниваются разными
+ * запусками, поэтому суммы читаются из файла {@link com.vilkovandrew.helpers.AppProperties#getEngineThroughputFile()}
+ * при загрузке класса и записываются в него {@link #writeCsv(String)}.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class EngineThroughput {
+    /**
+     * Количество страниц и время в наносекундах по способам чтения
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final Map<CatalogEngineType, long[]> TOTALS = new EnumMap<>(CatalogEngineType.class);
+
+    /**
+     * Заголовок CSV со скоростью обхода
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final String CSV_HEADER = "engine,pages,nanos";
+
+    static {
+        readCsv(Properties.appProperties.getEngineThroughputFile());
+    }
+
+    /**
+     * Закрытый конструктор, класс содержит только статические методы.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private EngineThroughput() {
+    }
+
+    /**
+     * Учёт проверенных страниц.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param engine способ чтения страниц
+     * @param pages  количество проверенных страниц
+     * @param nanos  время загрузки и проверки страниц в наносекундах без скриншотов
+     */
+    public static synchronized void record(CatalogEngineType engine, int pages, long nanos) {
+        if (pages <= 0) return;
+        long[] total = TOTALS.computeIfAbsent(engine, e -> new long[2]);
+        total[0] += pages;
+        total[1] += nanos;
+    }
+
+    /**
+     * Получение отчёта о скорости обхода страниц.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param engine способ чтения страниц текущей проверки, сравниваемый с остальными
+     * @return страницы в секунду по способам чтения и отношение к текущему
+     */
+    public static synchronized String getReport(CatalogEngineType engine) {
+        StringBuilder report = new StringBuilder();
+        double current = getPagesPerSecond(engine);
+        for (Map.Entry<CatalogEngineType, long[]> entry : TOTALS.entrySet()) {
+            double rate = getPagesPerSecond(entry.getKey());
+            report.append(format(Locale.ROOT, "%s: %.2f стр/с (страниц: %d, время: %d мс)",
+                    entry.getKey(), rate, entry.getValue()[0], TimeUnit.NANOSECONDS.toMillis(entry.getValue()[1])));
+            if (entry.getKey() != engine && rate > 0 && current > 0)
+                report.append(format(Locale.ROOT, ", %s быстрее в %.1f раз", engine, current / rate));
+            report.append(System.lineSeparator());
+        }
+        if (TOTALS.size() < 2) report.append("Сравнение появится после проверки другим способом");
+        return report.toString().trim();
+    }
+
+    /**
+     * Запись накопленной скорости обхода по способам чтения в файл CSV.
+     * <p>
+     * Файл перезаписывается целиком и содержит суммы всех запусков, включая текущий.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param file путь к файлу
+     */
+    public static synchronized void writeCsv(String file) {
+        StringBuilder csv = new StringBuilder(CSV_HEADER).append('\n');
+        TOTALS.forEach((engine, total) -> csv.append(format("%s,%d,%d%n", engine, total[0], total[1])));
+        try {
+            Path path = Paths.get(file);
+            if (path.getParent() != null) Files.createDirectories(path.getParent());
+            Files.write(path, csv.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Чтение сумм прошлых запусков из файла CSV.
+     * <p>
+     * Отсутствующий или повреждённый файл не мешает запуску: суммы начинаются с нуля.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param file путь к файлу
+     */
+    private static synchronized void readCsv(String file) {
+        Path path = Paths.get(file);
+        if (!Files.isRegularFile(path)) return;
+        try {
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                String[] fields = line.split(",");
+                if (fields.length != 3 || CSV_HEADER.equals(line)) continue;
+                record(CatalogEngineType.valueOf(fields[0]), Integer.parseInt(fields[1]), Long.parseLong(fields[2]));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            TOTALS.clear();
+        }
+    }
+
+    /**
+     * Получение скорости обхода страниц способом чтения.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param engine способ чтения страниц
+     * @return страницы в секунду, 0 если страниц не было
+     */
+    private static double getPagesPerSecond(CatalogEngineType engine) {
+        long[] total = TOTALS.get(engine);
+        if (total == null || total[1] == 0) return 0;
+        return total[0] * 1e9 / total[1];
+    }
+}
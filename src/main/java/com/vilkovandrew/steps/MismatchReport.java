@@ -0,0 +1,136 @@
+package com.vilkovandrew.steps;
+
+import com.vilkovandrew.yandex.market.helpers.FilterMismatch;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.lang.String.format;
+
+/**
+ * Сборщик несоответствий товаров фильтрам для мягкой проверки.
+ * <p>
+ * Несоответствия можно добавлять из потока проверки конвейера, отчёт строится после обхода всех страниц.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class MismatchReport {
+    /**
+     * Количество несоответствий, перечисляемых в сообщении об ошибке
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final int MESSAGE_LIMIT = 20;
+
+    /**
+     * Найденные несоответствия в порядке обнаружения
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final List<FilterMismatch> mismatches = new ArrayList<>();
+
+    /**
+     * Добавление несоответствия.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param mismatch несоответствие товара фильтру
+     */
+    public synchronized void add(FilterMismatch mismatch) {
+        mismatches.add(mismatch);
+    }
+
+    /**
+     * Получение найденных несоответствий.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return {@link List} содержащий несоответствия в порядке обнаружения
+     */
+    public synchronized List<FilterMismatch> getMismatches() {
+        return new ArrayList<>(mismatches);
+    }
+
+    /**
+     * Проверка что несоответствий не найдено.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return true если несоответствий нет, в противном случае false
+     */
+    public synchronized boolean isEmpty() {
+        return mismatches.isEmpty();
+    }
+
+    /**
+     * Получение таблицы несоответствий в формате CSV.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return таблица несоответствий
+     */
+    public synchronized String toCsv() {
+        StringBuilder csv = new StringBuilder("Страница,Товар,Цена,Ссылка,Фильтр,Скриншот\n");
+        for (FilterMismatch mismatch : mismatches) {
+            csv.append(mismatch.getPage().getPageNumber()).append(',')
+                    .append(quote(mismatch.getProduct().getHeader())).append(',')
+                    .append(mismatch.getProduct().getPrice()).append(',')
+                    .append(quote(mismatch.getProduct().getLink())).append(',')
+                    .append(quote(mismatch.getFilter().toString())).append(',')
+                    .append(quote(mismatch.getScreenshot() == null ? "" : mismatch.getScreenshot()))
+                    .append('\n');
+        }
+        return csv.toString();
+    }
+
+    /**
+     * Получение сообщения об ошибке со сводкой и первыми несоответствиями.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return сообщение об ошибке
+     */
+    public synchronized String getMessage() {
+        Set<String> products = new LinkedHashSet<>();
+        Set<Integer> pages = new LinkedHashSet<>();
+        for (FilterMismatch mismatch : mismatches) {
+            products.add(mismatch.getProduct().getKey());
+            pages.add(mismatch.getPage().getPageNumber());
+        }
+        StringBuilder message = new StringBuilder(format(
+                "Найдено несоответствий фильтрам: %d у %d товаров на %d страницах",
+                mismatches.size(), products.size(), pages.size()));
+        for (FilterMismatch mismatch : mismatches.subList(0, Math.min(MESSAGE_LIMIT, mismatches.size()))) {
+            message.append(format("%nстраница %d: '%s' не соответствует фильтру %s",
+                    mismatch.getPage().getPageNumber(), mismatch.getProduct().getHeader(), mismatch.getFilter()));
+            if (mismatch.getScreenshot() != null)
+                message.append(format(" (скриншот: %s)", mismatch.getScreenshot()));
+        }
+        if (mismatches.size() > MESSAGE_LIMIT)
+            message.append(format("%n... и ещё %d, полный список во вложении", mismatches.size() - MESSAGE_LIMIT));
+        return message.toString();
+    }
+
+    /**
+     * Экранирование значения для CSV.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param value значение
+     * @return значение в кавычках
+     */
+    private static String quote(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
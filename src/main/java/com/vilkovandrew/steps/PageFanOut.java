@@ -0,0 +1,328 @@
+package com.vilkovandrew.steps;
+
+import com.vilkovandrew.helpers.StepLatencies;
+import com.vilkovandrew.yandex.market.helpers.PageBatch;
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.ToIntBiFunction;
+
+import static java.lang.String.format;
+
+/**
+ * Распределение страниц результатов поиска между несколькими сессиями браузера.
+ * <p>
+ * После установки фильтров страницы результатов независимы и открываются по адресу, поэтому каждая сессия
+ * в своём потоке берёт следующий ещё не взятый номер страницы, открывает её и получает товары.
+ * Проверка выполняется в потоке вызова строго в порядке номеров страниц по мере их готовности.
+ * Новые страницы не берутся после истечения отведённого времени или ошибки.
+ * </p>
+ * <p>
+ * Блок пагинации показывает не все номера страниц, поэтому после получения последней известной страницы
+ * проверяется, есть ли следующая: если есть, граница сдвигается и сессии продолжают брать страницы.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class PageFanOut {
+    /**
+     * Максимальное время ожидания завершения сессиями текущих страниц после остановки в секундах.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 60;
+
+    /**
+     * Сессии браузера, между которыми распределяются страницы.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final List<WebDriver> drivers;
+
+    /**
+     * Момент {@link System#nanoTime()}, после которого новые страницы не берутся.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final long deadlineNanos;
+
+    /**
+     * Признак остановки распределения страниц.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final AtomicBoolean stopped = new AtomicBoolean();
+
+    /**
+     * Количество страниц, полученных каждой сессией.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final AtomicIntegerArray pagesPerSession;
+
+    /**
+     * Результаты страниц по номерам.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final Map<Integer, CompletableFuture<PageBatch>> pages = new ConcurrentHashMap<>();
+
+    /**
+     * Номер последней известной страницы результатов.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final AtomicInteger lastPage = new AtomicInteger();
+
+    /**
+     * Признак завершения всех сессий: страницы, которые ещё не получены, уже не будут получены.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private volatile boolean finished;
+
+    /**
+     * Количество проверенных страниц.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private int validated;
+
+    /**
+     * Общее количество страниц результатов.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private int pageCount;
+
+    /**
+     * Время работы в наносекундах.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private long elapsedNanos;
+
+    /**
+     * Конструктор класса {@link PageFanOut}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param drivers       сессии браузера, между которыми распределяются страницы
+     * @param deadlineNanos момент {@link System#nanoTime()}, после которого новые страницы не берутся
+     */
+    public PageFanOut(List<WebDriver> drivers, long deadlineNanos) {
+        this.drivers = new ArrayList<>(drivers);
+        this.deadlineNanos = deadlineNanos;
+        this.pagesPerSession = new AtomicIntegerArray(drivers.size());
+    }
+
+    /**
+     * Запуск получения и проверки страниц.
+     * <p>
+     * Ошибка получения или проверки страницы останавливает распределение новых страниц и пробрасывается из метода
+     * после того, как все сессии завершат текущие страницы.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param pageCount количество страниц результатов по блоку пагинации
+     * @param scrape    открытие страницы с заданным номером в заданной сессии и получение её товаров
+     * @param lastPage  номер последней страницы, известный по открытой в сессии странице с заданным номером
+     * @param validate  проверка товаров страницы
+     */
+    public void run(int pageCount, BiFunction<WebDriver, Integer, PageBatch> scrape,
+                    ToIntBiFunction<WebDriver, Integer> lastPage, Consumer<PageBatch> validate) {
+        this.lastPage.set(pageCount);
+        long start = System.nanoTime();
+        AtomicInteger nextPage = new AtomicInteger(1);
+        AtomicInteger active = new AtomicInteger(drivers.size());
+        ExecutorService executor = Executors.newFixedThreadPool(drivers.size(), r -> {
+            Thread thread = new Thread(r, "page-fan-out");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int session = 0; session < drivers.size(); session++) {
+            int index = session;
+            executor.execute(StepLatencies.propagate(() -> {
+                try {
+                    scrapePages(index, nextPage, scrape, lastPage);
+                } finally {
+                    if (active.decrementAndGet() == 0) {
+                        finished = true;
+                        pages.values().forEach(page -> page.complete(null));
+                    }
+                }
+            }));
+        }
+        try {
+            for (int number = 1; number <= this.lastPage.get(); number++) {
+                PageBatch batch = join(getPage(number));
+                if (batch == null) break;
+                validate.accept(batch);
+                validated++;
+            }
+        } finally {
+            stopped.set(true);
+            executor.shutdown();
+            awaitTermination(executor);
+            elapsedNanos = System.nanoTime() - start;
+            this.pageCount = this.lastPage.get();
+        }
+    }
+
+    /**
+     * Получение распределения страниц по сессиям в текстовом виде.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return количество сессий, страниц и время работы
+     */
+    public String getStatistics() {
+        StringBuilder perSession = new StringBuilder();
+        for (int i = 0; i < pagesPerSession.length(); i++) {
+            if (i > 0) perSession.append(", ");
+            perSession.append(pagesPerSession.get(i));
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        return format("Сессий: %d, проверено страниц: %d из %d%n" +
+                        "Страниц по сессиям: %s%n" +
+                        "Время: %d мс, в среднем на страницу: %d мс",
+                drivers.size(), validated, pageCount, perSession, millis, validated == 0 ? 0 : millis / validated);
+    }
+
+    /**
+     * Цикл одной сессии: получение страниц, пока они есть и распределение не остановлено.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param session  номер сессии
+     * @param nextPage номер следующей не взятой страницы
+     * @param scrape   открытие страницы и получение её товаров
+     * @param lastPage номер последней страницы, известный по открытой странице
+     */
+    private void scrapePages(int session, AtomicInteger nextPage, BiFunction<WebDriver, Integer, PageBatch> scrape,
+                             ToIntBiFunction<WebDriver, Integer> lastPage) {
+        WebDriver driver = drivers.get(session);
+        while (!stopped.get() && System.nanoTime() < deadlineNanos) {
+            int pageNumber = nextPage.getAndIncrement();
+            if (!awaitPage(pageNumber)) return;
+            try {
+                PageBatch batch = scrape.apply(driver, pageNumber);
+                if (pageNumber == this.lastPage.get())
+                    this.lastPage.accumulateAndGet(lastPage.applyAsInt(driver, pageNumber), Math::max);
+                getPage(pageNumber).complete(batch);
+                pagesPerSession.incrementAndGet(session);
+            } catch (RuntimeException | Error e) {
+                stopped.set(true);
+                getPage(pageNumber).completeExceptionally(e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Ожидание решения, существует ли страница с заданным номером.
+     * <p>
+     * Страница за последней известной существует, только если её показала пагинация последней известной
+     * страницы, поэтому сессия ждёт получения последней известной страницы.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param pageNumber номер страницы
+     * @return true если страница существует
+     */
+    private boolean awaitPage(int pageNumber) {
+        int last;
+        while (pageNumber > (last = lastPage.get())) {
+            try {
+                getPage(last).join();
+            } catch (CompletionException | CancellationException e) {
+                return false;
+            }
+            if (lastPage.get() == last) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Получение результата страницы по номеру.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param pageNumber номер страницы
+     * @return результат страницы, завершённый с null, если все сессии уже завершились
+     */
+    private CompletableFuture<PageBatch> getPage(int pageNumber) {
+        CompletableFuture<PageBatch> page = pages.computeIfAbsent(pageNumber, n -> new CompletableFuture<>());
+        if (finished) page.complete(null);
+        return page;
+    }
+
+    /**
+     * Ожидание результата страницы с пробросом ошибки её получения.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param page результат страницы
+     * @return товары страницы или null, если страница не была получена
+     */
+    private static PageBatch join(CompletableFuture<PageBatch> page) {
+        try {
+            return page.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) throw (Error) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Ожидание завершения сессиями текущих страниц.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param executor потоки сессий
+     */
+    private static void awaitTermination(ExecutorService executor) {
+        try {
+            executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
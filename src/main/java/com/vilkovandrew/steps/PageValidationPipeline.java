@@ -0,0 +1,309 @@
+package com.vilkovandrew.steps;
+
+import com.vilkovandrew.helpers.StepLatencies;
+import com.vilkovandrew.yandex.market.helpers.PageBatch;
+
+import java.util.Collections;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static java.lang.String.format;
+
+/**
+ * Конвейер проверки страниц результатов поиска.
+ * <p>
+ * Поток браузера получает товары страницы и сразу переходит на следующую, а отдельный поток
+ * проверяет полученные товары. Между этапами находится ограниченная очередь,
+ * поэтому браузер опережает проверку не более чем на её глубину.
+ * </p>
+ * <p>
+ * Поток проверки вычисляет результаты и готовит всё, что не требует браузера и отчёта, например сводную таблицу
+ * страницы, а в текущем потоке между переходами по страницам остаётся только создание шагов Allure:
+ * шаги одного родителя нельзя добавлять из нескольких потоков одновременно.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class PageValidationPipeline {
+    /**
+     * Признак окончания страниц в очереди.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final PageBatch END = new PageBatch(-1, null, Collections.emptyList());
+
+    /**
+     * Интервал проверки состояния потока проверки при ожидании очереди в миллисекундах.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final long POLL_MILLIS = 100;
+
+    /**
+     * Очередь страниц между этапами.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final BlockingQueue<PageBatch> queue;
+
+    /**
+     * Время получения товаров со страниц в наносекундах.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private long scrapeNanos;
+
+    /**
+     * Время перехода между страницами в наносекундах.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private long navigateNanos;
+
+    /**
+     * Время ожидания браузером места в очереди в наносекундах.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private long producerBlockedNanos;
+
+    /**
+     * Время записи отчёта по проверенным страницам в наносекундах.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private long reportNanos;
+
+    /**
+     * Время проверки страниц в наносекундах.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private volatile long validateNanos;
+
+    /**
+     * Время ожидания потоком проверки новых страниц в наносекундах.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private volatile long consumerIdleNanos;
+
+    /**
+     * Количество проверенных страниц.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private volatile int pages;
+
+    /**
+     * Конструктор класса {@link PageValidationPipeline}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param queueDepth максимальное количество страниц, ожидающих проверки
+     */
+    public PageValidationPipeline(int queueDepth) {
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueDepth));
+    }
+
+    /**
+     * Запуск конвейера.
+     * <p>
+     * Получение страниц, переходы и отчёт выполняются в текущем потоке, проверка - в отдельном.
+     * Результаты проверки передаются в отчёт в порядке страниц после каждого перехода и после последней страницы.
+     * Ошибка отчёта или проверки останавливает получение новых страниц и пробрасывается из метода.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param scrape   получение товаров с текущей страницы
+     * @param next     переход на следующую страницу, возвращает false если страниц больше нет
+     * @param validate проверка товаров страницы без обращений к отчёту
+     * @param report   запись результата проверки в отчёт
+     * @param <R>      тип результата проверки
+     */
+    public <R> void run(Supplier<PageBatch> scrape, BooleanSupplier next, Function<PageBatch, R> validate,
+                        Consumer<R> report) {
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "page-validation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Queue<R> results = new ConcurrentLinkedQueue<>();
+        Future<?> consumer = executor.submit(StepLatencies.propagate(() -> consume(validate, results)));
+        Throwable producerError = null;
+        try {
+            boolean hasNext;
+            do {
+                long start = System.nanoTime();
+                PageBatch batch = scrape.get();
+                scrapeNanos += System.nanoTime() - start;
+                if (!put(batch, consumer)) break;
+                report(results, report);
+                start = System.nanoTime();
+                hasNext = next.getAsBoolean();
+                navigateNanos += System.nanoTime() - start;
+            } while (hasNext);
+        } catch (RuntimeException | Error e) {
+            producerError = e;
+        } finally {
+            put(END, consumer);
+            executor.shutdown();
+        }
+        await(consumer);
+        if (producerError instanceof Error) throw (Error) producerError;
+        if (producerError != null) throw (RuntimeException) producerError;
+        report(results, report);
+    }
+
+    /**
+     * Получение времени работы этапов конвейера в текстовом виде.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return время работы этапов
+     */
+    public String getStatistics() {
+        return format("Проверено страниц: %d, глубина очереди: %d%n" +
+                        "Получение товаров: %d мс%n" +
+                        "Переход между страницами: %d мс%n" +
+                        "Ожидание браузером места в очереди: %d мс%n" +
+                        "Отчёт: %d мс%n" +
+                        "Проверка: %d мс%n" +
+                        "Ожидание проверкой новых страниц: %d мс",
+                pages, queue.remainingCapacity() + queue.size(),
+                toMillis(scrapeNanos), toMillis(navigateNanos), toMillis(producerBlockedNanos),
+                toMillis(reportNanos), toMillis(validateNanos), toMillis(consumerIdleNanos));
+    }
+
+    /**
+     * Цикл потока проверки.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param validate проверка товаров страницы
+     * @param results  результаты проверки, ожидающие записи в отчёт
+     * @param <R>      тип результата проверки
+     * @throws InterruptedException если ожидание очереди прервано
+     */
+    private <R> Void consume(Function<PageBatch, R> validate, Queue<R> results) throws InterruptedException {
+        while (true) {
+            long start = System.nanoTime();
+            PageBatch batch = queue.take();
+            consumerIdleNanos += System.nanoTime() - start;
+            if (batch == END) return null;
+            start = System.nanoTime();
+            results.add(validate.apply(batch));
+            pages++;
+            validateNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Запись в отчёт всех готовых результатов проверки.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param results результаты проверки, ожидающие записи в отчёт
+     * @param report  запись результата проверки в отчёт
+     * @param <R>     тип результата проверки
+     */
+    private <R> void report(Queue<R> results, Consumer<R> report) {
+        long start = System.nanoTime();
+        R result;
+        while ((result = results.poll()) != null) {
+            report.accept(result);
+        }
+        reportNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Помещение страницы в очередь с ожиданием места.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param batch    страница
+     * @param consumer поток проверки
+     * @return true если страница помещена в очередь, false если поток проверки уже завершился
+     */
+    private boolean put(PageBatch batch, Future<?> consumer) {
+        long start = System.nanoTime();
+        try {
+            while (!consumer.isDone()) {
+                if (queue.offer(batch, POLL_MILLIS, TimeUnit.MILLISECONDS)) return true;
+            }
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            consumer.cancel(true);
+            return false;
+        } finally {
+            if (batch != END) producerBlockedNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Ожидание завершения потока проверки и проброс его ошибки.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param consumer поток проверки
+     */
+    private static void await(Future<?> consumer) {
+        try {
+            consumer.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ожидание проверки страниц прервано", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) throw (Error) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IllegalStateException(cause);
+        } catch (CancellationException ignored) {
+            // Проверка отменена из-за прерывания потока браузера
+        }
+    }
+
+    /**
+     * Перевод наносекунд в миллисекунды.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param nanos время в наносекундах
+     * @return время в миллисекундах
+     */
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -1,28 +1,64 @@
 package com.vilkovandrew.steps;
 
 import com.vilkovandrew.helpers.Assertions;
+import com.vilkovandrew.helpers.DriverContext;
+import com.vilkovandrew.helpers.FixtureRecorder;
+import com.vilkovandrew.helpers.PageTraffic;
 import com.vilkovandrew.helpers.Properties;
+import com.vilkovandrew.helpers.ReportMode;
 import com.vilkovandrew.helpers.Screenshoter;
+import com.vilkovandrew.helpers.SessionSnapshot;
+import com.vilkovandrew.helpers.SessionSnapshots;
+import com.vilkovandrew.helpers.WaitPolicy;
+import com.vilkovandrew.helpers.WebDriverPool;
+import com.vilkovandrew.yandex.market.helpers.CatalogEngineType;
 import com.vilkovandrew.yandex.market.helpers.CheckBoxFilter;
+import com.vilkovandrew.yandex.market.helpers.CompiledFilters;
 import com.vilkovandrew.yandex.market.helpers.Filter;
+import com.vilkovandrew.yandex.market.helpers.FilterCompiler;
+import com.vilkovandrew.yandex.market.helpers.FilterMismatch;
+import com.vilkovandrew.yandex.market.helpers.PageBatch;
+import com.vilkovandrew.yandex.market.helpers.PageCheck;
+import com.vilkovandrew.yandex.market.helpers.PageSnapshot;
 import com.vilkovandrew.yandex.market.helpers.Product;
+import com.vilkovandrew.yandex.market.helpers.ProductBatch;
+import com.vilkovandrew.yandex.market.helpers.ProductExtractionMode;
+import com.vilkovandrew.yandex.market.helpers.ProductIndex;
 import com.vilkovandrew.yandex.market.helpers.RangeFilter;
+import com.vilkovandrew.yandex.market.pages.CatalogEngine;
 import com.vilkovandrew.yandex.market.pages.CatalogListPage;
+import com.vilkovandrew.yandex.market.pages.HttpCatalogEngine;
 import com.vilkovandrew.yandex.market.pages.MainPageMarket;
 import io.qameta.allure.Allure;
+import io.qameta.allure.AllureLifecycle;
 import io.qameta.allure.Step;
+import io.qameta.allure.model.Attachment;
 import io.qameta.allure.model.Status;
 import io.qameta.allure.model.StepResult;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 
-import java.time.Duration;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static java.lang.String.format;
 
@@ -32,22 +68,6 @@ import static java.lang.String.format;
  * @author Вилков Андрей
  */
 public class StepsAll {
-    /**
-     * Переменная для хранения экземпляра класса {@link WebDriver}.
-     * <p>
-     * Автор: Вилков Андрей
-     * </p>
-     */
-    private static WebDriver driver;
-
-    /**
-     * Переменная для хранения экземпляра класса {@link WebDriverWait}.
-     * <p>
-     * Автор: Вилков Андрей
-     * </p>
-     */
-    private static WebDriverWait wait;
-
     /**
      * Открытие конкретное страницы.
      * <p>
@@ -60,10 +80,10 @@ public class StepsAll {
      */
     @Step("Переходим на сайт: {url}")
     public static void openSite(String url, String title, WebDriver currentDriver) {
-        driver = currentDriver;
-        driver.get(url);
-        wait = new WebDriverWait(driver, Duration.ofSeconds(30));
-        wait.until(ExpectedConditions.titleContains(title));
+        DriverContext.setDriver(currentDriver);
+        currentDriver.get(url);
+        DriverContext.getWaits().until(WaitPolicy.READINESS, ExpectedConditions.titleContains(title));
+        FixtureRecorder.record(currentDriver);
     }
 
     /**
@@ -74,7 +94,7 @@ public class StepsAll {
      */
     @Step("Открытие каталога")
     public static void openCatalog() {
-        MainPageMarket mainPageMarket = new MainPageMarket(driver);
+        MainPageMarket mainPageMarket = new MainPageMarket(DriverContext.getDriver());
         mainPageMarket.openCatalog();
     }
 
@@ -88,8 +108,9 @@ public class StepsAll {
      */
     @Step("Наведение курсора на раздел {sectionName}")
     public static void moveCursorToSection(String sectionName) {
-        MainPageMarket mainPageMarket = new MainPageMarket(driver);
+        MainPageMarket mainPageMarket = new MainPageMarket(DriverContext.getDriver());
         mainPageMarket.moveCursorToSection(sectionName);
+        FixtureRecorder.record(DriverContext.getDriver());
     }
 
     /**
@@ -102,11 +123,96 @@ public class StepsAll {
      */
     @Step("Переходим в раздел {itemName}")
     public static void openSectionItem(String itemName) {
-        MainPageMarket mainPageMarket = new MainPageMarket(driver);
+        MainPageMarket mainPageMarket = new MainPageMarket(DriverContext.getDriver());
         mainPageMarket.openSectionItem(itemName);
+        FixtureRecorder.record(DriverContext.getDriver());
 
     }
 
+    /**
+     * Открытие раздела каталога с сайта или из снимка сессии
+     * <p>
+     * Если для раздела есть действующий снимок {@link SessionSnapshot}, он восстанавливается в сессию и сценарий
+     * начинается сразу со страницы раздела. Иначе раздел открывается по адресу из карты каталога, а если адреса
+     * нет - через всплывающее окно каталога, после чего снимок сохраняется в {@link SessionSnapshots}. Снимок, который не удалось восстановить, удаляется,
+     * ошибка записывается в отчёт шагом со статусом {@link Status#BROKEN}, и выполняется обычная навигация.
+     * </p>
+     * <p>
+     * Категория и раздел задают сценарий, в котором {@link FixtureRecorder} записывает страницы.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param url           URL сайта
+     * @param title         ожидаемый заголовок или часть заголовка страницы сайта
+     * @param sectionName   имя категории в каталоге
+     * @param itemName      имя раздела в категории каталога
+     * @param currentDriver экземпляра класса {@link WebDriver}
+     */
+    @Step("Открываем раздел {sectionName} / {itemName}")
+    public static void openCatalogSection(String url, String title, String sectionName, String itemName, WebDriver currentDriver) {
+        FixtureRecorder.setScenario(currentDriver, sectionName + "/" + itemName);
+        String key = SessionSnapshots.getKey(url, sectionName, itemName);
+        Optional<SessionSnapshot> snapshot = SessionSnapshots.get(key);
+        if (snapshot.isPresent()) {
+            DriverContext.setDriver(currentDriver);
+            try {
+                restoreSession(snapshot.get(), currentDriver);
+                return;
+            } catch (RuntimeException | AssertionError e) {
+                Allure.step(format("Не удалось восстановить сессию '%s', раздел открывается заново: %s", key, e),
+                        Status.BROKEN);
+                SessionSnapshots.remove(key);
+            }
+        }
+        openSite(url, title, currentDriver);
+        if (!openSectionItemFromMap(sectionName, itemName)) {
+            openCatalog();
+            moveCursorToSection(sectionName);
+            openSectionItem(itemName);
+        }
+        SessionSnapshots.put(key, SessionSnapshot.capture(currentDriver));
+    }
+
+    /**
+     * Восстановление сессии из снимка
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param snapshot      снимок сессии
+     * @param currentDriver экземпляра класса {@link WebDriver}
+     */
+    @Step("Восстанавливаем сессию из снимка: {snapshot.url}")
+    private static void restoreSession(SessionSnapshot snapshot, WebDriver currentDriver) {
+        snapshot.restore(currentDriver);
+        new CatalogListPage(currentDriver).waitPageLoaded();
+        FixtureRecorder.record(currentDriver);
+        Allure.step(format("Возраст снимка: %d с, cookies: %d",
+                TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - snapshot.getCreatedAt()),
+                snapshot.getCookieCount()));
+    }
+
+    /**
+     * Открытие раздела по адресу из карты каталога
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param sectionName имя категории в каталоге
+     * @param itemName    имя раздела в категории каталога
+     * @return true если раздел открыт, false если его нужно открыть через каталог
+     * @see com.vilkovandrew.yandex.market.helpers.CatalogNavigationMap
+     */
+    @Step("Переходим в раздел {itemName} по карте каталога")
+    public static boolean openSectionItemFromMap(String sectionName, String itemName) {
+        MainPageMarket mainPageMarket = new MainPageMarket(DriverContext.getDriver());
+        boolean opened = mainPageMarket.openSectionItemFromMap(sectionName, itemName);
+        if (opened) FixtureRecorder.record(DriverContext.getDriver());
+        return opened;
+    }
+
     /**
      * Установка значений диапазона фильтра
      * <p>
@@ -119,8 +225,9 @@ public class StepsAll {
      */
     @Step("Установка фильтру {filterName} значений: от {minValue} до {maxValue} ")
     public static void setRangeFilter(String filterName, int minValue, int maxValue) {
-        CatalogListPage catalogListPage = new CatalogListPage(driver);
+        CatalogListPage catalogListPage = new CatalogListPage(DriverContext.getDriver());
         catalogListPage.setRangeFilter(filterName, minValue, maxValue);
+        Allure.step(format("Список товаров обновился за %d мс", catalogListPage.getLastSettleMillis()));
     }
 
     /**
@@ -134,8 +241,9 @@ public class StepsAll {
      */
     @Step("Установка фильтру {filterName} значений: {values} ")
     public static void setManyValueFilter(String filterName, List<String> values) {
-        CatalogListPage catalogListPage = new CatalogListPage(driver);
+        CatalogListPage catalogListPage = new CatalogListPage(DriverContext.getDriver());
         catalogListPage.setManyValueFilter(filterName, values);
+        Allure.step(format("Список товаров обновился за %d мс", catalogListPage.getLastSettleMillis()));
     }
 
     /**
@@ -148,8 +256,11 @@ public class StepsAll {
      */
     @Step("Проверяем что на странице более {number} элементов")
     public static void numberItemsOnPageMoreThan(int number) {
-        CatalogListPage catalogListPage = new CatalogListPage(driver);
-        int actualSize = catalogListPage.getProductOnPage().size();
+        CatalogListPage catalogListPage = new CatalogListPage(DriverContext.getDriver());
+        long actualSize;
+        try (Stream<Product> productOnPage = streamProductOnPage(catalogListPage)) {
+            actualSize = productOnPage.limit(number + 1L).count();
+        }
         Assertions.assertTrue(actualSize > number,
                 "Ожидали что количестов элементов на странице более " + number +
                         ", количество элементов на странице: " + actualSize);
@@ -165,8 +276,7 @@ public class StepsAll {
      */
     @Step("Переход на страницу №{pageNumber}")
     public static void goToPage(int pageNumber) {
-        CatalogListPage catalogListPage = new CatalogListPage(driver);
-        catalogListPage.goToPage(pageNumber);
+        getCatalogEngine().goToPage(pageNumber);
     }
 
     /**
@@ -179,7 +289,7 @@ public class StepsAll {
      */
     @Step("Вводим в поисковую строку '{searchText}' и нажимаем поиск")
     public static void search(String searchText) {
-        CatalogListPage catalogListPage = new CatalogListPage(driver);
+        CatalogListPage catalogListPage = new CatalogListPage(DriverContext.getDriver());
         catalogListPage.search(searchText);
     }
 
@@ -194,8 +304,11 @@ public class StepsAll {
      */
     @Step("Получаем {number} по порядку товар на странице")
     public static Product getProductInOrderOnPage(int number) {
-        CatalogListPage catalogListPage = new CatalogListPage(driver);
-        List<Product> productOnPage = catalogListPage.getProductOnPage();
+        CatalogListPage catalogListPage = new CatalogListPage(DriverContext.getDriver());
+        List<Product> productOnPage;
+        try (Stream<Product> products = streamProductOnPage(catalogListPage)) {
+            productOnPage = products.limit(number).collect(Collectors.toList());
+        }
         Assertions.assertTrue(productOnPage.size() >= number,
                 "Ожидали что количестов элементов на странице более " + number +
                         ", количество элементов на странице: " + productOnPage.size());
@@ -212,15 +325,23 @@ public class StepsAll {
      */
     @Step("Проверяем наличие '{product.header}' на странице")
     public static void containsOnPage(Product product) {
-        CatalogListPage catalogListPage = new CatalogListPage(driver);
-        List<Product> productOnPage = catalogListPage.getProductOnPage();
-        Assertions.assertTrue(productOnPage.contains(product), "Ожидали наличие товара с наименованием '" +
+        CatalogListPage catalogListPage = new CatalogListPage(DriverContext.getDriver());
+        boolean present;
+        try (Stream<Product> productOnPage = streamProductOnPage(catalogListPage)) {
+            present = productOnPage.anyMatch(product::equals);
+        }
+        Assertions.assertTrue(present, "Ожидали наличие товара с наименованием '" +
                 product.getHeader() + "', товар отсутствует на странице.");
     }
 
     /**
      * Установка значений фильтров
      * <p>
+     * При включённом {@link com.vilkovandrew.helpers.AppProperties#isFiltersByUrl()} фильтры устанавливаются
+     * одной загрузкой страницы с параметрами, через интерфейс устанавливаются только фильтры,
+     * параметры которых определить не удалось.
+     * </p>
+     * <p>
      * Автор: Вилков Андрей
      * </p>
      *
@@ -229,7 +350,14 @@ public class StepsAll {
      */
     @Step("Установка значений для фильтров {filters}")
     public static void setFilters(List<Filter> filters) {
-        filters.forEach(f -> {
+        List<Filter> uiFilters = filters;
+        if (Properties.appProperties.isFiltersByUrl()) {
+            uiFilters = new CatalogListPage(DriverContext.getDriver()).setFiltersByUrl(filters);
+            if (uiFilters.size() < filters.size())
+                Allure.step(format("Через адрес страницы установлено фильтров: %d из %d",
+                        filters.size() - uiFilters.size(), filters.size()));
+        }
+        uiFilters.forEach(f -> {
             switch (f.getType()) {
                 case RANGE: {
                     RangeFilter rfilter = (RangeFilter) f;
@@ -248,6 +376,34 @@ public class StepsAll {
     /**
      * Проверка соответствия всех товаров переданным фильтрам
      * <p>
+     * При включённом {@link com.vilkovandrew.helpers.AppProperties#isValidationPipeline()} страницы проверяются
+     * в {@link PageValidationPipeline}: браузер переходит на следующую страницу, пока проверяется предыдущая.
+     * Скриншот несоответствующего товара в этом режиме делается после остановки конвейера, с повторным
+     * открытием страницы.
+     * </p>
+     * <p>
+     * В режиме {@link ProductExtractionMode#SNAPSHOT} с браузера берётся только исходный код страницы, а товары
+     * разбираются в пуле потоков {@link PageSnapshot}, и проверка дожидается разбора своей страницы.
+     * </p>
+     * <p>
+     * При {@link com.vilkovandrew.helpers.AppProperties#getCatalogEngine()} равном {@link CatalogEngineType#HTTP}
+     * страницы загружаются параллельно {@link HttpCatalogEngine} без браузера, браузер открывает только страницы
+     * с несоответствиями для скриншотов. Страница, загруженная без товаров, считается ошибкой. Скорость обхода
+     * сравнивается со способом Selenium в {@link EngineThroughput}: учитывается время загрузки и проверки страниц
+     * без скриншотов несоответствий.
+     * </p>
+     * <p>
+     * При {@link com.vilkovandrew.helpers.AppProperties#getFanOutSessions()} больше 1 количество страниц читается
+     * из пагинации, и страницы распределяются между сессиями браузера в {@link PageFanOut}. Пока у последней
+     * известной страницы есть кнопка 'Вперёд', граница сдвигается по её пагинации. Если пагинация не найдена,
+     * страницы проверяются последовательно, о чём в отчёт пишется шаг.
+     * </p>
+     * <p>
+     * При включённом {@link com.vilkovandrew.helpers.AppProperties#isSoftValidation()} несоответствие не прерывает
+     * обход страниц: все несоответствия собираются в {@link MismatchReport}, и проверка падает один раз в конце
+     * со списком товаров, фильтров, страниц и скриншотов.
+     * </p>
+     * <p>
      * Автор: Вилков Андрей
      * </p>
      *
@@ -256,35 +412,601 @@ public class StepsAll {
      */
     @Step("Проверка соответствия товаров фильтрам")
     public static void isAllProductsMatchFilters(List<Filter> filters) {
-        final String parentUUID = Allure.getLifecycle().getCurrentTestCaseOrStep().get();
+        final String parentUUID = Allure.getLifecycle().getCurrentTestCaseOrStep()
+                .orElseThrow(() -> new IllegalStateException("Не найден текущий шаг Allure"));
+        WebDriver driver = DriverContext.getDriver();
         CatalogListPage catalogListPage = new CatalogListPage(driver);
+        CompiledFilters compiledFilters = FilterCompiler.compile(filters);
+        boolean soft = Properties.appProperties.isSoftValidation();
+        MismatchReport mismatchReport = new MismatchReport();
         LocalTime startTime = LocalTime.now();
-        do {
-            List<Product> productOnPage = catalogListPage.getProductOnPage();
-            for (Product product : productOnPage) {
-                UUID uuid = UUID.randomUUID();
-                Allure.getLifecycle().startStep(parentUUID, uuid.toString(), new StepResult()
-                        .setName(format("Тестируем %s", product.getHeader()))
-                        .setStatus(Status.PASSED)
-                );
-                filters.forEach(f -> {
+        long startNanos = System.nanoTime();
+        long validationNanos = 0;
+        AtomicLong screenshotNanos = new AtomicLong();
+        CatalogEngineType engineType = Properties.appProperties.getCatalogEngine();
+        AtomicInteger validatedPages = new AtomicInteger();
+        AtomicInteger pageNumber = new AtomicInteger();
+        ProductIndex productIndex = new ProductIndex();
+        Supplier<PageBatch> scrape = () -> {
+            if (Properties.appProperties.getProductExtractionMode() == ProductExtractionMode.SNAPSHOT) {
+                String url = driver.getCurrentUrl();
+                return new PageBatch(pageNumber.incrementAndGet(), url, snapshotPage(catalogListPage)
+                        .thenApply(snapshot -> {
+                            productIndex.addAll(snapshot.getProducts());
+                            return snapshot;
+                        }));
+            }
+            List<Product> products = getProductOnPage(catalogListPage);
+            productIndex.addAll(products);
+            return new PageBatch(pageNumber.incrementAndGet(), driver.getCurrentUrl(), products);
+        };
+        BooleanSupplier next = () -> catalogListPage.goToNextPage() &&
+                ChronoUnit.MINUTES.between(startTime, LocalTime.now()) < Properties.appProperties.getTimeoutNextPageLoop();
+
+        int pageCount = engineType == CatalogEngineType.SELENIUM && Properties.appProperties.getFanOutSessions() > 1
+                ? catalogListPage.getPageCount() : 0;
+        if (pageCount == 0 && engineType == CatalogEngineType.SELENIUM && Properties.appProperties.getFanOutSessions() > 1)
+            Allure.step("Пагинация не найдена, страницы проверяются последовательно в одной сессии", Status.BROKEN);
+        if (engineType == CatalogEngineType.HTTP) {
+            HttpCatalogEngine engine = HttpCatalogEngine.of(driver);
+            long deadline = startNanos + TimeUnit.MINUTES.toNanos(Properties.appProperties.getTimeoutNextPageLoop());
+            List<CompletableFuture<PageSnapshot>> pages = engine.fetchPages(Math.max(1, engine.getPageCount()));
+            try {
+                for (int i = 0; i < pages.size() && System.nanoTime() < deadline; i++) {
+                    PageSnapshot snapshot = pages.get(i).join();
+                    Assertions.assertTrue(!snapshot.getProducts().isEmpty(),
+                            format("Страница %d '%s' загружена без товаров", i + 1, snapshot.getUrl()));
+                    productIndex.addAll(snapshot.getProducts());
+                    validatePage(parentUUID, new PageBatch(i + 1, snapshot),
+                            compiledFilters, soft, mismatchReport::add);
+                    validatedPages.incrementAndGet();
+                }
+                validationNanos = System.nanoTime() - startNanos;
+            } finally {
+                pages.forEach(page -> page.cancel(false));
+                screenshotMismatches(driver, catalogListPage, mismatchReport, soft);
+                Allure.addAttachment("Загрузка страниц HTTP клиентом", engine.getStatistics());
+                reportDuplicates(productIndex);
+            }
+        } else if (pageCount > 1) {
+            String url = driver.getCurrentUrl();
+            List<WebDriver> sessions = leaseFanOutSessions(driver, Math.min(Properties.appProperties.getFanOutSessions(), pageCount));
+            PageFanOut fanOut = new PageFanOut(sessions,
+                    System.nanoTime() + TimeUnit.MINUTES.toNanos(Properties.appProperties.getTimeoutNextPageLoop()));
+            try {
+                fanOut.run(pageCount, (session, number) -> {
+                    if (number != 1 || !url.equals(session.getCurrentUrl()))
+                        session.get(CatalogListPage.getPageUrl(url, number));
+                    List<Product> products = new CatalogListPage(session).getProductOnPage();
+                    productIndex.addAll(products);
+                    return new PageBatch(number, session.getCurrentUrl(), products);
+                }, (session, number) -> {
+                    CatalogListPage page = new CatalogListPage(session);
+                    return page.hasNextPage() ? Math.max(page.getPageCount(), number + 1) : number;
+                }, page -> {
+                    validatePage(parentUUID, page, compiledFilters, soft, mismatchReport::add);
+                    validatedPages.incrementAndGet();
+                });
+                validationNanos = System.nanoTime() - startNanos;
+            } finally {
+                sessions.subList(1, sessions.size()).forEach(WebDriverPool.getInstance()::release);
+                screenshotMismatches(driver, catalogListPage, mismatchReport, soft);
+                Allure.addAttachment("Распределение страниц по сессиям", fanOut.getStatistics());
+                reportDuplicates(productIndex);
+            }
+        } else if (!Properties.appProperties.isValidationPipeline()) {
+            Map<Product, String> screenshots = new HashMap<>();
+            try {
+                do {
+                    Consumer<FilterMismatch> onMismatch = mismatch -> {
+                        long screenshotStart = System.nanoTime();
+                        mismatch.setScreenshot(screenshots.computeIfAbsent(mismatch.getProduct(),
+                                product -> screenshotMismatch(driver, catalogListPage, mismatch, screenshots.size(), soft)));
+                        screenshotNanos.addAndGet(System.nanoTime() - screenshotStart);
+                        mismatchReport.add(mismatch);
+                    };
+                    if (Properties.appProperties.getProductExtractionMode() == ProductExtractionMode.HARVEST)
+                        validateHarvestedPage(parentUUID, catalogListPage, pageNumber.incrementAndGet(), productIndex,
+                                compiledFilters, soft, onMismatch);
+                    else
+                        validatePage(parentUUID, scrape.get(), compiledFilters, soft, onMismatch);
+                    validatedPages.incrementAndGet();
+                } while (next.getAsBoolean());
+                validationNanos = System.nanoTime() - startNanos;
+            } finally {
+                reportDuplicates(productIndex);
+            }
+        } else {
+            PageValidationPipeline pipeline = new PageValidationPipeline(Properties.appProperties.getValidationQueueDepth());
+            try {
+                pipeline.run(scrape, next, page -> PageCheck.check(page, compiledFilters), check -> {
+                    reportPage(parentUUID, check, compiledFilters, soft, mismatchReport::add);
+                    validatedPages.incrementAndGet();
+                });
+                validationNanos = System.nanoTime() - startNanos;
+            } finally {
+                screenshotMismatches(driver, catalogListPage, mismatchReport, soft);
+                Allure.addAttachment("Время этапов конвейера проверки", pipeline.getStatistics());
+                reportDuplicates(productIndex);
+            }
+        }
+        EngineThroughput.record(engineType, validatedPages.get(), validationNanos - screenshotNanos.get());
+        Allure.addAttachment("Скорость обхода страниц", EngineThroughput.getReport(engineType));
+        if (!mismatchReport.isEmpty() && soft) {
+            Allure.addAttachment("Несоответствия фильтрам", "text/csv", mismatchReport.toCsv(), ".csv");
+            Assertions.fail(mismatchReport.getMessage());
+        }
+    }
+
+    /**
+     * Получение сессий для распределения страниц
+     * <p>
+     * Первой идёт текущая сессия теста, дополнительные берутся из {@link WebDriverPool} без ожидания,
+     * поэтому при занятом пуле страницы распределяются между меньшим количеством сессий.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param driver   сессия теста
+     * @param sessions желаемое количество сессий
+     * @return {@link List} сессий, первая из которых - сессия теста
+     */
+    private static List<WebDriver> leaseFanOutSessions(WebDriver driver, int sessions) {
+        List<WebDriver> result = new ArrayList<>();
+        result.add(driver);
+        while (result.size() < sessions) {
+            Optional<WebDriver> session = WebDriverPool.getInstance().tryLease();
+            if (!session.isPresent()) break;
+            FixtureRecorder.setScenario(session.get(), FixtureRecorder.getScenario());
+            result.add(session.get());
+        }
+        return result;
+    }
+
+    /**
+     * Скриншоты несоответствующих товаров после остановки конвейера проверки
+     * <p>
+     * Каждая страница с несоответствиями открывается повторно один раз, на ней снимаются все её товары
+     * в пределах {@link com.vilkovandrew.helpers.AppProperties#getSoftValidationMaxScreenshots()}.
+     * </p>
+     * <p>
+     * Вызывается из блоков finally, поэтому не бросает исключений: ошибка открытия страницы или скриншота
+     * записывается в отчёт шагом со статусом {@link Status#BROKEN} и не подменяет ошибку проверки.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param driver          экземпляр класса {@link WebDriver}
+     * @param catalogListPage страница каталога
+     * @param mismatchReport  найденные несоответствия
+     * @param soft            признак мягкой проверки, при которой количество скриншотов ограничено
+     */
+    private static void screenshotMismatches(WebDriver driver, CatalogListPage catalogListPage,
+                                             MismatchReport mismatchReport, boolean soft) {
+        Map<Product, String> screenshots = new HashMap<>();
+        String openedUrl = null;
+        for (FilterMismatch mismatch : mismatchReport.getMismatches()) {
+            if (!screenshots.containsKey(mismatch.getProduct())) {
+                if (screenshots.size() >= Properties.appProperties.getSoftValidationMaxScreenshots()) break;
+                if (!mismatch.getPage().getUrl().equals(openedUrl)) {
+                    openedUrl = mismatch.getPage().getUrl();
+                    try {
+                        driver.get(openedUrl);
+                    } catch (RuntimeException e) {
+                        Allure.step(format("Не удалось открыть страницу '%s' для скриншотов: %s", openedUrl, e),
+                                Status.BROKEN);
+                        break;
+                    }
+                }
+                screenshots.put(mismatch.getProduct(),
+                        screenshotMismatch(driver, catalogListPage, mismatch, screenshots.size(), soft));
+            }
+            mismatch.setScreenshot(screenshots.get(mismatch.getProduct()));
+        }
+    }
+
+    /**
+     * Скриншот несоответствующего товара на текущей странице
+     * <p>
+     * Скриншот делается по возможности: ошибка, например если элемент товара не найден, записывается в отчёт
+     * шагом со статусом {@link Status#BROKEN}, а исходная ошибка проверки не подменяется.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param driver          экземпляр класса {@link WebDriver}
+     * @param catalogListPage страница каталога
+     * @param mismatch        несоответствие товара фильтру
+     * @param taken           количество уже сделанных скриншотов
+     * @param soft            признак мягкой проверки, при которой количество скриншотов ограничено
+     * @return имя вложения со скриншотом или null, если скриншот не сделан
+     */
+    private static String screenshotMismatch(WebDriver driver, CatalogListPage catalogListPage,
+                                             FilterMismatch mismatch, int taken, boolean soft) {
+        if (soft && taken >= Properties.appProperties.getSoftValidationMaxScreenshots()) return null;
+        String name = format("Страница %d: %s", mismatch.getPage().getPageNumber(), mismatch.getProduct().getHeader());
+        try {
+            return Screenshoter.attach(driver, catalogListPage.getElementByProduct(mismatch.getProduct()), name);
+        } catch (RuntimeException | AssertionError e) {
+            Allure.step(format("Не удалось сделать скриншот '%s': %s", name, e), Status.BROKEN);
+            return null;
+        }
+    }
+
+    /**
+     * Запись в отчёт количества уникальных товаров и повторов, встреченных на разных страницах
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param productIndex индекс товаров проверенных страниц
+     */
+    private static void reportDuplicates(ProductIndex productIndex) {
+        Allure.step(format("Уникальных товаров: %d, повторов на разных страницах: %d",
+                productIndex.size(), productIndex.getDuplicates()));
+    }
+
+    /**
+     * Проверка соответствия товаров одной страницы фильтрам с записью шагов в отчёт
+     * <p>
+     * Товары страницы проверяются всеми фильтрами заранее одним проходом по колоночной пачке {@link ProductBatch},
+     * затем результат пишется в отчёт через {@link #reportPage(String, PageCheck, CompiledFilters, boolean, Consumer)}.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param parentUUID идентификатор родительского шага Allure
+     * @param page       товары страницы
+     * @param filters    скомпилированные фильтры
+     * @param soft       признак мягкой проверки, при которой несоответствие не прерывает проверку
+     * @param onMismatch действие при несоответствии товара фильтру, вызывается до падения проверки
+     */
+    private static void validatePage(String parentUUID, PageBatch page, CompiledFilters filters, boolean soft,
+                                     Consumer<FilterMismatch> onMismatch) {
+        reportPage(parentUUID, PageCheck.check(page, filters), filters, soft, onMismatch);
+    }
+
+    /**
+     * Проверка товаров страницы фильтрами по мере их сбора в режиме {@link ProductExtractionMode#HARVEST}
+     * <p>
+     * Каждая порция товаров, отрисованная за один шаг прокрутки, проверяется сразу, поэтому несоответствие
+     * при строгой проверке прерывает прокрутку страницы. Результаты порций объединяются, и отчёт по странице
+     * пишется один раз после её сбора через {@link #reportPage(String, PageCheck, CompiledFilters, boolean, Consumer)}.
+     * Повторы товаров учитываются по всей странице.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param parentUUID      идентификатор родительского шага Allure
+     * @param catalogListPage страница каталога
+     * @param pageNumber      номер страницы по порядку обхода
+     * @param productIndex    индекс товаров для поиска повторов между страницами
+     * @param filters         скомпилированные фильтры
+     * @param soft            признак мягкой проверки, при которой несоответствие не прерывает проверку
+     * @param onMismatch      действие при несоответствии товара фильтру, вызывается до падения проверки
+     */
+    private static void validateHarvestedPage(String parentUUID, CatalogListPage catalogListPage, int pageNumber,
+                                              ProductIndex productIndex, CompiledFilters filters, boolean soft,
+                                              Consumer<FilterMismatch> onMismatch) {
+        WebDriver driver = DriverContext.getDriver();
+        String url = driver.getCurrentUrl();
+        List<Product> productOnPage = new ArrayList<>();
+        BitSet[] mismatches = new BitSet[filters.getFilters().size()];
+        for (int f = 0; f < mismatches.length; f++) mismatches[f] = new BitSet();
+        try (Stream<List<Product>> chunks = catalogListPage.streamProductChunksOnPage()) {
+            Iterator<List<Product>> iterator = chunks.iterator();
+            boolean failed = false;
+            while (!failed && iterator.hasNext()) {
+                List<Product> chunk = iterator.next();
+                BitSet[] chunkMismatches = filters.mismatches(new ProductBatch(chunk));
+                for (int f = 0; f < mismatches.length; f++) {
+                    BitSet chunkMismatch = chunkMismatches[f];
+                    for (int i = chunkMismatch.nextSetBit(0); i >= 0; i = chunkMismatch.nextSetBit(i + 1)) {
+                        mismatches[f].set(productOnPage.size() + i);
+                    }
+                    failed |= !soft && !chunkMismatch.isEmpty();
+                }
+                productOnPage.addAll(chunk);
+            }
+        } finally {
+            productIndex.addAll(productOnPage);
+        }
+        PageBatch page = new PageBatch(pageNumber, url, productOnPage);
+        reportPage(parentUUID, new PageCheck(page, new ProductBatch(productOnPage), mismatches, filters.getFilters()),
+                filters, soft, onMismatch);
+        FixtureRecorder.record(driver);
+        Allure.step(format("Список товаров загрузился за %d мс", catalogListPage.getLastSettleMillis()));
+        reportCollected(catalogListPage);
+    }
+
+    /**
+     * Запись в отчёт шагов о неразобранных ценах и об усечении списка товаров страницы по
+     * {@link com.vilkovandrew.helpers.AppProperties#getCatalogPageSize()}
+     * <p>
+     * Для потока товаров вызывается после его потребления, когда счётчики уже посчитаны.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param catalogListPage страница каталога
+     */
+    private static void reportCollected(CatalogListPage catalogListPage) {
+        if (catalogListPage.getUnparseablePrices() > 0)
+            Allure.step(format("Цен не разобрано: %d", catalogListPage.getUnparseablePrices()));
+        if (catalogListPage.isHarvestTruncated())
+            Allure.step(format("Собраны только первые %d товаров страницы, остальные отброшены по catalog.page_size",
+                    Properties.appProperties.getCatalogPageSize()), Status.BROKEN);
+    }
+
+    /**
+     * Запись результата проверки страницы в отчёт в режиме {@link com.vilkovandrew.helpers.AppProperties#getReportMode()}
+     * <p>
+     * Шаги создаются с явным указанием родителя, но Allure не допускает одновременного добавления шагов
+     * к одному родителю, поэтому метод вызывается только из потока теста.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param parentUUID идентификатор родительского шага Allure
+     * @param check      результат проверки страницы
+     * @param filters    скомпилированные фильтры
+     * @param soft       признак мягкой проверки, при которой несоответствие не прерывает проверку
+     * @param onMismatch действие при несоответствии товара фильтру, вызывается до падения проверки
+     */
+    private static void reportPage(String parentUUID, PageCheck check, CompiledFilters filters, boolean soft,
+                                   Consumer<FilterMismatch> onMismatch) {
+        if (Properties.appProperties.getReportMode() == ReportMode.VERBOSE)
+            reportVerbose(parentUUID, check.getPage(), filters, check.getBatch(), check.getMismatches(), soft, onMismatch);
+        else
+            reportAggregated(parentUUID, check, filters, soft, onMismatch);
+    }
+
+    /**
+     * Запись в отчёт отдельного шага на каждый товар и каждый фильтр в режиме {@link ReportMode#VERBOSE}
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param parentUUID идентификатор родительского шага Allure
+     * @param page       товары страницы
+     * @param filters    скомпилированные фильтры
+     * @param batch      товары страницы в колоночном виде
+     * @param mismatches номера несоответствующих товаров по фильтрам
+     * @param soft       признак мягкой проверки, при которой несоответствие не прерывает проверку
+     * @param onMismatch действие при несоответствии товара фильтру, вызывается до падения проверки
+     */
+    private static void reportVerbose(String parentUUID, PageBatch page, CompiledFilters filters,
+                                      ProductBatch batch, BitSet[] mismatches, boolean soft,
+                                      Consumer<FilterMismatch> onMismatch) {
+        final AllureLifecycle lifecycle = Allure.getLifecycle();
+        if (page.getUnparseablePrices() > 0) {
+            String pageUUID = UUID.randomUUID().toString();
+            lifecycle.startStep(parentUUID, pageUUID, new StepResult()
+                    .setName(format("Страница %d: цен не разобрано %d", page.getPageNumber(), page.getUnparseablePrices()))
+                    .setStatus(Status.PASSED));
+            lifecycle.stopStep(pageUUID);
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Product product = batch.getProduct(i);
+            String uuid = UUID.randomUUID().toString();
+            lifecycle.startStep(parentUUID, uuid, new StepResult()
+                    .setName(format("Тестируем %s", product.getHeader()))
+                    .setStatus(Status.PASSED)
+            );
+            try {
+                for (int index = 0; index < mismatches.length; index++) {
+                    Filter f = filters.getFilters().get(index);
                     String currentUUID = UUID.randomUUID().toString();
                     StepResult stepResult = new StepResult()
                             .setName(format("Проверка соответствия фильтру %s", f.getFilterName()))
                             .setStatus(Status.PASSED);
-                    Allure.getLifecycle().startStep(uuid.toString(), currentUUID, stepResult);
-                    boolean condition = f.isMatches(product);
-                    if (!condition) {
-                        WebElement currentProduct = catalogListPage.getElementByProduct(product);
-                        Screenshoter.getScreen(driver, currentProduct);
-                        Allure.getLifecycle().updateStep(uuid.toString(), mainStepResult -> mainStepResult.setStatus(Status.FAILED));
+                    lifecycle.startStep(uuid, currentUUID, stepResult);
+                    try {
+                        boolean condition = !mismatches[index].get(i);
+                        if (!condition) {
+                            onMismatch.accept(new FilterMismatch(page, product, f));
+                            lifecycle.updateStep(currentUUID, filterStepResult -> filterStepResult.setStatus(Status.FAILED));
+                            lifecycle.updateStep(uuid, mainStepResult -> mainStepResult.setStatus(Status.FAILED));
+                        }
+                        if (condition || !soft)
+                            Assertions.assertTrue(condition,
+                                    format("Товар '%s' не соответствует фильтру %s\n", product.getHeader(), f));
+                    } finally {
+                        lifecycle.stopStep(currentUUID);
                     }
-                    Assertions.assertTrue(condition,
-                            format("Товар '%s' не соответствует фильтру %s\n", product.getHeader(), f));
-                    Allure.getLifecycle().stopStep(currentUUID);
-                });
-                Allure.getLifecycle().stopStep(uuid.toString());
+                }
+            } finally {
+                lifecycle.stopStep(uuid);
             }
-        } while (catalogListPage.goToNextPage() && ChronoUnit.MINUTES.between(startTime, LocalTime.now()) < Properties.appProperties.getTimeoutNextPageLoop());
+        }
+    }
+
+    /**
+     * Запись в отчёт одного шага на страницу в режиме {@link ReportMode#AGGREGATED}
+     * <p>
+     * Пройденные проверки только подсчитываются и попадают в сводную таблицу страницы, подготовленную в {@link PageCheck}.
+     * Полный шаг с проверками по всем фильтрам создаётся только для первого несоответствующего товара,
+     * после чего проверка падает. При мягкой проверке шаги создаются для всех несоответствующих товаров без падения.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param parentUUID идентификатор родительского шага Allure
+     * @param check      результат проверки страницы
+     * @param filters    скомпилированные фильтры
+     * @param soft       признак мягкой проверки, при которой несоответствие не прерывает проверку
+     * @param onMismatch действие при несоответствии товара фильтру, вызывается до падения проверки
+     */
+    private static void reportAggregated(String parentUUID, PageCheck check, CompiledFilters filters, boolean soft,
+                                         Consumer<FilterMismatch> onMismatch) {
+        final AllureLifecycle lifecycle = Allure.getLifecycle();
+        List<Filter> filterList = filters.getFilters();
+        PageBatch page = check.getPage();
+        ProductBatch batch = check.getBatch();
+        BitSet[] mismatches = check.getMismatches();
+        BitSet failedProducts = check.getFailedProducts();
+
+        String pageUUID = UUID.randomUUID().toString();
+        lifecycle.startStep(parentUUID, pageUUID, new StepResult()
+                .setName(format("Страница %d: товаров %d, проверок пройдено %d из %d%s",
+                        page.getPageNumber(), batch.size(), check.getTotalChecks() - check.getFailedChecks(),
+                        check.getTotalChecks(),
+                        page.getUnparseablePrices() > 0 ? format(", цен не разобрано %d", page.getUnparseablePrices()) : ""))
+                .setStatus(failedProducts.isEmpty() ? Status.PASSED : Status.FAILED));
+        String message = null;
+        try {
+            addTextAttachment(pageUUID, format("Сводка страницы %d", page.getPageNumber()), "text/csv", ".csv",
+                    check.getSummary());
+            for (int i = failedProducts.nextSetBit(0); i >= 0; i = failedProducts.nextSetBit(i + 1)) {
+                Product product = batch.getProduct(i);
+                String productUUID = UUID.randomUUID().toString();
+                lifecycle.startStep(pageUUID, productUUID, new StepResult()
+                        .setName(format("Тестируем %s", product.getHeader()))
+                        .setStatus(Status.FAILED));
+                for (int f = 0; f < mismatches.length; f++) {
+                    boolean failed = mismatches[f].get(i);
+                    String filterUUID = UUID.randomUUID().toString();
+                    lifecycle.startStep(productUUID, filterUUID, new StepResult()
+                            .setName(format("Проверка соответствия фильтру %s", filterList.get(f).getFilterName()))
+                            .setStatus(failed ? Status.FAILED : Status.PASSED));
+                    lifecycle.stopStep(filterUUID);
+                    if (!failed) continue;
+                    onMismatch.accept(new FilterMismatch(page, product, filterList.get(f)));
+                    if (message == null)
+                        message = format("Товар '%s' не соответствует фильтру %s\n", product.getHeader(), filterList.get(f));
+                }
+                lifecycle.stopStep(productUUID);
+                if (!soft) break;
+            }
+        } finally {
+            lifecycle.stopStep(pageUUID);
+        }
+        if (!soft && message != null) Assertions.fail(message);
+    }
+
+    /**
+     * Добавление текстового вложения к шагу Allure по его идентификатору
+     * <p>
+     * В отличие от {@link Allure#addAttachment(String, String)} не зависит от текущего шага потока
+     * и прикрепляет вложение к шагу, созданному с явным указанием родителя.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param stepUUID      идентификатор шага
+     * @param name          имя вложения
+     * @param type          MIME-тип вложения
+     * @param fileExtension расширение файла вложения
+     * @param content       содержимое вложения
+     */
+    private static void addTextAttachment(String stepUUID, String name, String type, String fileExtension,
+                                          String content) {
+        AllureLifecycle lifecycle = Allure.getLifecycle();
+        String source = UUID.randomUUID() + "-attachment" + fileExtension;
+        lifecycle.writeAttachment(source, new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+        lifecycle.updateStep(stepUUID, step -> step.getAttachments().add(new Attachment()
+                .setName(name)
+                .setType(type)
+                .setSource(source)));
+    }
+
+    /**
+     * Получение товаров со страницы с отчётом о сэкономленных обращениях к WebDriver, трафике, времени загрузки списка
+     * и неразобранных ценах
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param catalogListPage страница каталога
+     * @return {@link List} содержащий товары
+     */
+    private static List<Product> getProductOnPage(CatalogListPage catalogListPage) {
+        List<Product> productOnPage = catalogListPage.getProductOnPage();
+        FixtureRecorder.record(DriverContext.getDriver());
+        if (catalogListPage.getSavedRoundTrips() > 0)
+            Allure.step(format("Получено товаров одним запросом: %d, сэкономлено обращений к WebDriver: %d",
+                    productOnPage.size(), catalogListPage.getSavedRoundTrips()));
+        Allure.step(format("Передано по сети на странице: %s", PageTraffic.measure(DriverContext.getDriver())));
+        Allure.step(format("Список товаров загрузился за %d мс", catalogListPage.getLastSettleMillis()));
+        reportCollected(catalogListPage);
+        return productOnPage;
+    }
+
+    /**
+     * Получение исходного кода страницы и запуск разбора её товаров в пуле потоков
+     * <p>
+     * Браузер свободен сразу после передачи исходного кода, поэтому следующая страница открывается,
+     * пока разбирается текущая.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param catalogListPage страница каталога
+     * @return {@link CompletableFuture} со снимком страницы
+     * @see PageSnapshot
+     */
+    private static CompletableFuture<PageSnapshot> snapshotPage(CatalogListPage catalogListPage) {
+        WebDriver driver = DriverContext.getDriver();
+        String url = driver.getCurrentUrl();
+        String pageSource = catalogListPage.capturePageSource();
+        FixtureRecorder.record(url, pageSource);
+        Allure.step(format("Получен исходный код страницы: %d символов", pageSource.length()));
+        Allure.step(format("Передано по сети на странице: %s", PageTraffic.measure(driver)));
+        Allure.step(format("Список товаров загрузился за %d мс", catalogListPage.getLastSettleMillis()));
+        return PageSnapshot.parseAsync(pageSource, url);
+    }
+
+    /**
+     * Получение способа чтения страниц результатов для текущей сессии
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return {@link HttpCatalogEngine} сессии или страница каталога в браузере
+     */
+    private static CatalogEngine getCatalogEngine() {
+        WebDriver driver = DriverContext.getDriver();
+        if (Properties.appProperties.getCatalogEngine() == CatalogEngineType.HTTP) return HttpCatalogEngine.of(driver);
+        return new CatalogListPage(driver);
+    }
+
+    /**
+     * Получение потока товаров со страницы
+     * <p>
+     * В режиме {@link ProductExtractionMode#HARVEST} товары собираются по мере потребления потока, поэтому проверка,
+     * которой достаточно первых товаров, завершается без прокрутки всего списка. В остальных режимах поток строится
+     * по уже полученному списку товаров. При чтении страниц {@link CatalogEngineType#HTTP} товары берутся
+     * из {@link HttpCatalogEngine}.
+     * </p>
+     * <p>
+     * Неразобранные цены собранных товаров пишутся в отчёт при закрытии потока, поэтому поток закрывается
+     * после потребления.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param catalogListPage страница каталога
+     * @return {@link Stream} содержащий товары
+     */
+    private static Stream<Product> streamProductOnPage(CatalogListPage catalogListPage) {
+        if (Properties.appProperties.getCatalogEngine() == CatalogEngineType.HTTP)
+            return getCatalogEngine().getProductOnPage().stream();
+        if (Properties.appProperties.getProductExtractionMode() != ProductExtractionMode.HARVEST)
+            return getProductOnPage(catalogListPage).stream();
+        Stream<Product> productOnPage = catalogListPage.streamProductOnPage();
+        FixtureRecorder.record(DriverContext.getDriver());
+        Allure.step(format("Список товаров загрузился за %d мс", catalogListPage.getLastSettleMillis()));
+        return productOnPage.onClose(() -> reportCollected(catalogListPage));
     }
 }
@@ -0,0 +1,27 @@
+package com.vilkovandrew.yandex.market.helpers;
+
+/**
+ * Класс предоставляющий способы чтения страниц результатов каталога.
+ *
+ * @author Вилков Андрей
+ */
+public enum CatalogEngineType {
+    /**
+     * Чтение страниц в браузере через WebDriver
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @see com.vilkovandrew.yandex.market.pages.CatalogListPage
+     */
+    SELENIUM,
+    /**
+     * Загрузка страниц HTTP клиентом и разбор в JVM, браузер используется только для действий в интерфейсе
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @see com.vilkovandrew.yandex.market.pages.HttpCatalogEngine
+     */
+    HTTP;
+}
@@ -0,0 +1,178 @@
+package com.vilkovandrew.yandex.market.helpers;
+
+import com.vilkovandrew.helpers.Properties;
+import io.qameta.allure.Allure;
+import io.qameta.allure.model.Status;
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * Карта навигации каталога: адреса разделов по сайту, категории и имени раздела.
+ * <p>
+ * Карта пополняется при каждом проходе через всплывающее окно каталога и сохраняется в файл
+ * {@link com.vilkovandrew.helpers.AppProperties#getCatalogNavigationMapFile()}, поэтому следующие сценарии
+ * и запуски открывают раздел переходом по адресу. Запись старше
+ * {@link com.vilkovandrew.helpers.AppProperties#getCatalogNavigationMapTtl()} не выдаётся и обновляется
+ * при следующем проходе через каталог.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class CatalogNavigationMap {
+    /**
+     * Сериализатор JSON
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final Json JSON = new Json();
+
+    /**
+     * Записи карты по ключу сайт, категория и раздел: адрес и время обновления
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static Map<String, Map<String, Object>> entries;
+
+    /**
+     * Закрытый конструктор, класс содержит только статические методы.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private CatalogNavigationMap() {
+    }
+
+    /**
+     * Получение адреса раздела.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param origin      адрес сайта без пути
+     * @param sectionName имя категории каталога
+     * @param itemName    имя раздела категории
+     * @return {@link Optional} с адресом раздела или пустой, если записи нет или она устарела
+     */
+    public static synchronized Optional<String> get(String origin, String sectionName, String itemName) {
+        Map<String, Object> entry = getEntries().get(getKey(origin, sectionName, itemName));
+        if (entry == null) return Optional.empty();
+        long ttl = TimeUnit.HOURS.toMillis(Properties.appProperties.getCatalogNavigationMapTtl());
+        long updatedAt = ((Number) entry.get("updatedAt")).longValue();
+        if (System.currentTimeMillis() - updatedAt > ttl) return Optional.empty();
+        return Optional.of(String.valueOf(entry.get("href")));
+    }
+
+    /**
+     * Добавление или обновление разделов категории с сохранением карты в файл.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param origin      адрес сайта без пути
+     * @param sectionName имя категории каталога
+     * @param items       адреса разделов по их именам
+     */
+    public static synchronized void update(String origin, String sectionName, Map<String, String> items) {
+        if (items.isEmpty()) return;
+        long now = System.currentTimeMillis();
+        items.forEach((itemName, href) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("href", href);
+            entry.put("updatedAt", now);
+            getEntries().put(getKey(origin, sectionName, itemName), entry);
+        });
+        save();
+    }
+
+    /**
+     * Удаление раздела, адрес которого оказался неверным.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param origin      адрес сайта без пути
+     * @param sectionName имя категории каталога
+     * @param itemName    имя раздела категории
+     */
+    public static synchronized void remove(String origin, String sectionName, String itemName) {
+        if (getEntries().remove(getKey(origin, sectionName, itemName)) != null) save();
+    }
+
+    /**
+     * Получение ключа записи.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param origin      адрес сайта без пути
+     * @param sectionName имя категории каталога
+     * @param itemName    имя раздела категории
+     * @return ключ записи без учёта регистра имён
+     */
+    private static String getKey(String origin, String sectionName, String itemName) {
+        return origin + '\n' + sectionName.trim().toLowerCase() + '\n' + itemName.trim().toLowerCase();
+    }
+
+    /**
+     * Получение записей карты с чтением файла при первом обращении.
+     * <p>
+     * Файл, который не удалось прочитать, считается пустым и будет перезаписан.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return записи карты
+     */
+    private static Map<String, Map<String, Object>> getEntries() {
+        if (entries != null) return entries;
+        entries = new LinkedHashMap<>();
+        Path file = Paths.get(Properties.appProperties.getCatalogNavigationMapFile());
+        if (!Files.exists(file)) return entries;
+        try {
+            Map<String, Object> json = JSON.toType(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), Json.MAP_TYPE);
+            json.forEach((key, value) -> {
+                if (!(value instanceof Map)) return;
+                Map<String, Object> entry = new LinkedHashMap<>();
+                ((Map<?, ?>) value).forEach((field, item) -> entry.put(String.valueOf(field), item));
+                if (entry.get("href") != null && entry.get("updatedAt") instanceof Number) entries.put(key, entry);
+            });
+        } catch (IOException | RuntimeException e) {
+            entries.clear();
+        }
+        return entries;
+    }
+
+    /**
+     * Сохранение карты в файл.
+     * <p>
+     * Ошибка записи не прерывает тест: она пишется в отчёт шагом, а карта остаётся в памяти до конца запуска.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static void save() {
+        Path file = Paths.get(Properties.appProperties.getCatalogNavigationMapFile());
+        try {
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+            Files.write(file, JSON.toJson(entries).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Allure.step(format("Не удалось записать карту каталога '%s', карта останется только в памяти: %s",
+                    file, e), Status.BROKEN);
+        }
+    }
+}
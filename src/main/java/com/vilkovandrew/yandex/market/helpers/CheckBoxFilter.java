@@ -1,6 +1,7 @@
 package com.vilkovandrew.yandex.market.helpers;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -16,6 +17,13 @@ public class CheckBoxFilter extends Filter {
      * </p>
      */
     private final List<String> values;
+    /**
+     * Параметры фильтра в нижнем регистре
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final String[] lowerCaseValues;
 
     /**
      * Конструктор класса {@link CheckBoxFilter}.
@@ -28,7 +36,11 @@ public class CheckBoxFilter extends Filter {
      */
     public CheckBoxFilter(String filterName, String... values) {
         super(FilterType.CHECKBOX, filterName);
-        this.values = Arrays.asList(values);
+        this.values = Collections.unmodifiableList(Arrays.asList(values.clone()));
+        this.lowerCaseValues = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            lowerCaseValues[i] = values[i].toLowerCase();
+        }
     }
 
     /**
@@ -37,7 +49,7 @@ public class CheckBoxFilter extends Filter {
      * Автор: Вилков Андрей
      * </p>
      *
-     * @return список параметров фильтра
+     * @return неизменяемый список параметров фильтра
      */
     public List<String> getValues() {
         return values;
@@ -54,8 +66,21 @@ public class CheckBoxFilter extends Filter {
      */
     @Override
     public boolean isMatches(Product product) {
-        for (String value : values) {
-            if (product.getHeader().toLowerCase().contains(value.toLowerCase())) return true;
+        return isMatchesLowerCase(product.getHeader().toLowerCase());
+    }
+
+    /**
+     * Проверка соответствия заголовка товара, уже приведённого к нижнему регистру, фильтру.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param lowerCaseHeader заголовок товара в нижнем регистре
+     * @return true если заголовок содержит хотя бы один из параметров фильтра, в противном случае false
+     */
+    public boolean isMatchesLowerCase(String lowerCaseHeader) {
+        for (String value : lowerCaseValues) {
+            if (lowerCaseHeader.contains(value)) return true;
         }
         return false;
     }
@@ -0,0 +1,97 @@
+package com.vilkovandrew.yandex.market.helpers;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Класс представляющий скомпилированный список фильтров.
+ * <p>
+ * Проверяет пачку товаров {@link ProductBatch} всеми фильтрами за один проход и возвращает
+ * для каждого фильтра набор номеров несоответствующих товаров. Пачка - это товары одной страницы,
+ * порядка 48 штук, поэтому проверка выполняется в вызывающем потоке без деления на части.
+ * </p>
+ *
+ * @author Вилков Андрей
+ * @see FilterCompiler
+ */
+public class CompiledFilters {
+    /**
+     * Исходные фильтры
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final List<Filter> filters;
+
+    /**
+     * Проверки фильтров в том же порядке
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final List<Check> checks;
+
+    /**
+     * Конструктор класса {@link CompiledFilters}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param filters исходные фильтры
+     * @param checks  проверки фильтров в том же порядке
+     */
+    CompiledFilters(List<Filter> filters, List<Check> checks) {
+        this.filters = filters;
+        this.checks = checks;
+    }
+
+    /**
+     * Получение исходных фильтров.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return {@link List} содержащий фильтры
+     */
+    public List<Filter> getFilters() {
+        return filters;
+    }
+
+    /**
+     * Проверка пачки товаров всеми фильтрами.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param batch пачка товаров
+     * @return массив наборов номеров несоответствующих товаров, по одному на фильтр в порядке {@link #getFilters()}
+     */
+    public BitSet[] mismatches(ProductBatch batch) {
+        int size = batch.size();
+        BitSet[] result = new BitSet[checks.size()];
+        for (int f = 0; f < result.length; f++) {
+            result[f] = new BitSet(size);
+            checks.get(f).mismatches(batch, result[f]);
+        }
+        return result;
+    }
+
+    /**
+     * Проверка всех товаров пачки одним фильтром.
+     *
+     * @author Вилков Андрей
+     */
+    @FunctionalInterface
+    interface Check {
+        /**
+         * Отметка несоответствующих фильтру товаров.
+         * <p>
+         * Автор: Вилков Андрей
+         * </p>
+         *
+         * @param batch      пачка товаров
+         * @param mismatches набор, в котором отмечаются номера несоответствующих товаров
+         */
+        void mismatches(ProductBatch batch, BitSet mismatches);
+    }
+}
@@ -0,0 +1,137 @@
+package com.vilkovandrew.yandex.market.helpers;
+
+import java.util.Map;
+
+/**
+ * Класс представляющий блок фильтра на панели фильтров каталога.
+ *
+ * @author Вилков Андрей
+ */
+public class FilterBlock {
+    /**
+     * Идентификатор фильтра, значение атрибута data-filter-id
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final String id;
+    /**
+     * Заголовок фильтра
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final String title;
+    /**
+     * Тип фильтра
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final FilterType type;
+    /**
+     * Соответствие названия значения в нижнем регистре его идентификатору data-filter-value-id
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final Map<String, String> values;
+
+    /**
+     * Конструктор класса {@link FilterBlock}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param id     идентификатор фильтра
+     * @param title  заголовок фильтра
+     * @param type   тип фильтра
+     * @param values соответствие названия значения в нижнем регистре его идентификатору
+     */
+    public FilterBlock(String id, String title, FilterType type, Map<String, String> values) {
+        this.id = id;
+        this.title = title;
+        this.type = type;
+        this.values = values;
+    }
+
+    /**
+     * Получение идентификатора фильтра.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return идентификатор фильтра
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Получение заголовка фильтра.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return заголовок фильтра
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Получение типа фильтра.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return {@link FilterType} тип фильтра
+     */
+    public FilterType getType() {
+        return type;
+    }
+
+    /**
+     * Получение идентификатора значения фильтра по его названию без учёта регистра.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param value название значения
+     * @return идентификатор значения или null, если значение не отображается на панели
+     */
+    public String getValueId(String value) {
+        return values.get(value.toLowerCase());
+    }
+
+    /**
+     * Проверка что заголовок фильтра содержит переданное имя без учёта регистра.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param filterName имя фильтра
+     * @return true если заголовок содержит имя фильтра, в противном случае false
+     */
+    public boolean isNamed(String filterName) {
+        return title.toUpperCase().contains(filterName.toUpperCase());
+    }
+
+    /**
+     * Получение строкового представления блока фильтра.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return строковое представление блока фильтра.
+     */
+    @Override
+    public String toString() {
+        return "FilterBlock{" +
+                "id='" + id + '\'' +
+                ", title='" + title + '\'' +
+                ", type=" + type +
+                ", values=" + values.size() +
+                '}';
+    }
+}
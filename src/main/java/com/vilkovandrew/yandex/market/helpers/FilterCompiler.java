@@ -0,0 +1,79 @@
+package com.vilkovandrew.yandex.market.helpers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Компилятор фильтров в проверку колоночных пачек товаров.
+ * <p>
+ * Каждый фильтр превращается в специализированную проверку: {@link RangeFilter} сравнивает массив цен,
+ * {@link CheckBoxFilter} ищет параметры в заголовках, заранее приведённых к нижнему регистру.
+ * Для остальных наследников {@link Filter} используется {@link Filter#isMatches(Product)}.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class FilterCompiler {
+    /**
+     * Закрытый конструктор, класс содержит только статические методы.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private FilterCompiler() {
+    }
+
+    /**
+     * Компиляция списка фильтров.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param filters список фильтров
+     * @return скомпилированные фильтры
+     */
+    public static CompiledFilters compile(List<Filter> filters) {
+        List<CompiledFilters.Check> checks = new ArrayList<>(filters.size());
+        for (Filter filter : filters) {
+            checks.add(compile(filter));
+        }
+        return new CompiledFilters(Collections.unmodifiableList(new ArrayList<>(filters)), checks);
+    }
+
+    /**
+     * Компиляция одного фильтра.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param filter фильтр
+     * @return проверка товаров пачки
+     */
+    private static CompiledFilters.Check compile(Filter filter) {
+        if (filter instanceof RangeFilter) {
+            RangeFilter range = (RangeFilter) filter;
+            int min = range.getMinValue();
+            int max = range.getMaxValue();
+            return (batch, mismatches) -> {
+                for (int i = 0; i < batch.size(); i++) {
+                    int price = batch.getPrice(i);
+                    if (price < min || price > max) mismatches.set(i);
+                }
+            };
+        }
+        if (filter instanceof CheckBoxFilter) {
+            CheckBoxFilter checkBox = (CheckBoxFilter) filter;
+            return (batch, mismatches) -> {
+                for (int i = 0; i < batch.size(); i++) {
+                    if (!checkBox.isMatchesLowerCase(batch.getLowerCaseHeader(i))) mismatches.set(i);
+                }
+            };
+        }
+        return (batch, mismatches) -> {
+            for (int i = 0; i < batch.size(); i++) {
+                if (!filter.isMatches(batch.getProduct(i))) mismatches.set(i);
+            }
+        };
+    }
+}
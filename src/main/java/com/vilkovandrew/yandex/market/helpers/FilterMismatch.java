@@ -0,0 +1,131 @@
+package com.vilkovandrew.yandex.market.helpers;
+
+/**
+ * Класс представляющий несоответствие товара фильтру.
+ *
+ * @author Вилков Андрей
+ */
+public class FilterMismatch {
+    /**
+     * Страница, на которой найден товар
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final PageBatch page;
+    /**
+     * Несоответствующий товар
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final Product product;
+    /**
+     * Фильтр, которому товар не соответствует
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final Filter filter;
+    /**
+     * Имя вложения со скриншотом товара
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private volatile String screenshot;
+
+    /**
+     * Конструктор класса {@link FilterMismatch}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param page    страница, на которой найден товар
+     * @param product несоответствующий товар
+     * @param filter  фильтр, которому товар не соответствует
+     */
+    public FilterMismatch(PageBatch page, Product product, Filter filter) {
+        this.page = page;
+        this.product = product;
+        this.filter = filter;
+    }
+
+    /**
+     * Получение страницы, на которой найден товар.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return страница
+     */
+    public PageBatch getPage() {
+        return page;
+    }
+
+    /**
+     * Получение несоответствующего товара.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return товар
+     */
+    public Product getProduct() {
+        return product;
+    }
+
+    /**
+     * Получение фильтра, которому товар не соответствует.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return фильтр
+     */
+    public Filter getFilter() {
+        return filter;
+    }
+
+    /**
+     * Получение имени вложения со скриншотом товара.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return имя вложения или null, если скриншот не сделан
+     */
+    public String getScreenshot() {
+        return screenshot;
+    }
+
+    /**
+     * Установка имени вложения со скриншотом товара.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param screenshot имя вложения
+     */
+    public void setScreenshot(String screenshot) {
+        this.screenshot = screenshot;
+    }
+
+    /**
+     * Получение строкового представления несоответствия.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return строковое представление несоответствия.
+     */
+    @Override
+    public String toString() {
+        return "FilterMismatch{" +
+                "page=" + page.getPageNumber() +
+                ", product='" + product.getHeader() + '\'' +
+                ", filter=" + filter +
+                ", screenshot='" + screenshot + '\'' +
+                '}';
+    }
+}
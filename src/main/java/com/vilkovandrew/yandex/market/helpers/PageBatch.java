@@ -0,0 +1,157 @@
+package com.vilkovandrew.yandex.market.helpers;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Класс представляющий товары, полученные с одной страницы результатов поиска.
+ * <p>
+ * Товары могут ещё разбираться в другом потоке, тогда {@link #getProducts()} дожидается окончания разбора.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class PageBatch {
+    /**
+     * Номер страницы по порядку обхода
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final int pageNumber;
+    /**
+     * Адрес страницы
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final String url;
+    /**
+     * Товары страницы, готовые или ещё разбираемые
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final CompletableFuture<List<Product>> products;
+    /**
+     * Количество товаров страницы, цену которых не удалось разобрать, если страница разобрана {@link PageSnapshot}
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final CompletableFuture<Integer> unparseablePrices;
+
+    /**
+     * Конструктор класса {@link PageBatch}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param pageNumber номер страницы по порядку обхода
+     * @param url        адрес страницы
+     * @param products   товары страницы
+     */
+    public PageBatch(int pageNumber, String url, List<Product> products) {
+        this.pageNumber = pageNumber;
+        this.url = url;
+        this.products = CompletableFuture.completedFuture(products);
+        this.unparseablePrices = CompletableFuture.completedFuture(0);
+    }
+
+    /**
+     * Конструктор класса {@link PageBatch} для страницы, которая ещё разбирается.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param pageNumber номер страницы по порядку обхода
+     * @param url        адрес страницы
+     * @param snapshot   разбор страницы
+     */
+    public PageBatch(int pageNumber, String url, CompletableFuture<PageSnapshot> snapshot) {
+        this.pageNumber = pageNumber;
+        this.url = url;
+        this.products = snapshot.thenApply(PageSnapshot::getProducts);
+        this.unparseablePrices = snapshot.thenApply(PageSnapshot::getUnparseablePrices);
+    }
+
+    /**
+     * Конструктор класса {@link PageBatch} для разобранной страницы.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param pageNumber номер страницы по порядку обхода
+     * @param snapshot   снимок страницы
+     */
+    public PageBatch(int pageNumber, PageSnapshot snapshot) {
+        this(pageNumber, snapshot.getUrl(), CompletableFuture.completedFuture(snapshot));
+    }
+
+    /**
+     * Получение номера страницы по порядку обхода.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return номер страницы
+     */
+    public int getPageNumber() {
+        return pageNumber;
+    }
+
+    /**
+     * Получение адреса страницы.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return адрес страницы
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Получение товаров страницы с ожиданием окончания их разбора.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return {@link List} содержащий товары
+     * @throws java.util.concurrent.CompletionException если разбор товаров завершился ошибкой
+     */
+    public List<Product> getProducts() {
+        return products.join();
+    }
+
+    /**
+     * Получение количества товаров страницы, цену которых не удалось разобрать, с ожиданием окончания разбора.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return количество товаров без цены, 0 если страница получена готовым списком товаров
+     * @throws java.util.concurrent.CompletionException если разбор страницы завершился ошибкой
+     */
+    public int getUnparseablePrices() {
+        return unparseablePrices.join();
+    }
+
+    /**
+     * Получение строкового представления страницы.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return строковое представление страницы.
+     */
+    @Override
+    public String toString() {
+        return "PageBatch{" +
+                "pageNumber=" + pageNumber +
+                ", url='" + url + '\'' +
+                ", products=" + (products.isDone() && !products.isCompletedExceptionally() ? products.join().size() : "?") +
+                '}';
+    }
+}
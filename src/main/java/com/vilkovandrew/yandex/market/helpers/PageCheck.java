@@ -0,0 +1,187 @@
+package com.vilkovandrew.yandex.market.helpers;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Класс представляющий результат проверки товаров страницы фильтрами до записи в отчёт.
+ * <p>
+ * Проверка не обращается к Allure, поэтому выполняется в любом потоке, а отчёт по результату
+ * пишется в потоке теста. Вместе с проверкой подготавливаются сводная таблица страницы и номера
+ * несоответствующих товаров, чтобы в потоке теста оставалось только создание шагов.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class PageCheck {
+    /**
+     * Проверенная страница
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final PageBatch page;
+    /**
+     * Товары страницы в колоночном виде
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final ProductBatch batch;
+    /**
+     * Номера несоответствующих товаров по фильтрам
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final BitSet[] mismatches;
+    /**
+     * Номера товаров, не соответствующих хотя бы одному фильтру
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final BitSet failedProducts = new BitSet();
+    /**
+     * Количество непройденных проверок
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private int failedChecks;
+    /**
+     * Сводная таблица страницы в формате CSV
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final String summary;
+
+    /**
+     * Конструктор класса {@link PageCheck}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param page       проверенная страница
+     * @param batch      товары страницы в колоночном виде
+     * @param mismatches номера несоответствующих товаров по фильтрам
+     * @param filters    фильтры в порядке наборов несоответствий
+     */
+    public PageCheck(PageBatch page, ProductBatch batch, BitSet[] mismatches, List<Filter> filters) {
+        this.page = page;
+        this.batch = batch;
+        this.mismatches = mismatches;
+        StringBuilder table = new StringBuilder("Фильтр,Проверено,Соответствует,Не соответствует\n");
+        for (int f = 0; f < mismatches.length; f++) {
+            int failed = mismatches[f].cardinality();
+            failedChecks += failed;
+            failedProducts.or(mismatches[f]);
+            table.append('"').append(filters.get(f).getFilterName().replace("\"", "\"\"")).append('"')
+                    .append(',').append(batch.size())
+                    .append(',').append(batch.size() - failed)
+                    .append(',').append(failed)
+                    .append('\n');
+        }
+        this.summary = table.toString();
+    }
+
+    /**
+     * Проверка товаров страницы скомпилированными фильтрами.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param page    страница
+     * @param filters скомпилированные фильтры
+     * @return результат проверки
+     */
+    public static PageCheck check(PageBatch page, CompiledFilters filters) {
+        ProductBatch batch = new ProductBatch(page.getProducts());
+        return new PageCheck(page, batch, filters.mismatches(batch), filters.getFilters());
+    }
+
+    /**
+     * Получение проверенной страницы.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return страница
+     */
+    public PageBatch getPage() {
+        return page;
+    }
+
+    /**
+     * Получение товаров страницы в колоночном виде.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return товары страницы
+     */
+    public ProductBatch getBatch() {
+        return batch;
+    }
+
+    /**
+     * Получение номеров несоответствующих товаров по фильтрам.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return массив в порядке фильтров
+     */
+    public BitSet[] getMismatches() {
+        return mismatches;
+    }
+
+    /**
+     * Получение номеров товаров, не соответствующих хотя бы одному фильтру.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return номера товаров
+     */
+    public BitSet getFailedProducts() {
+        return failedProducts;
+    }
+
+    /**
+     * Получение количества непройденных проверок.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return количество проверок
+     */
+    public int getFailedChecks() {
+        return failedChecks;
+    }
+
+    /**
+     * Получение общего количества проверок страницы.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return количество товаров, умноженное на количество фильтров
+     */
+    public int getTotalChecks() {
+        return batch.size() * mismatches.length;
+    }
+
+    /**
+     * Получение сводной таблицы страницы.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return таблица в формате CSV по фильтрам
+     */
+    public String getSummary() {
+        return summary;
+    }
+}
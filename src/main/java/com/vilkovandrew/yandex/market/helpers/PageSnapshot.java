@@ -0,0 +1,279 @@
+package com.vilkovandrew.yandex.market.helpers;
+
+import com.vilkovandrew.helpers.Properties;
+import com.vilkovandrew.helpers.StepLatencies;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.TextNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Разобранный снимок HTML страницы каталога: товары с ценами, состояние панели фильтров и количество страниц.
+ * <p>
+ * Разбор повторяет логику скриптов и локаторов {@link com.vilkovandrew.yandex.market.pages.CatalogListPage}
+ * и {@link com.vilkovandrew.yandex.market.pages.FilterPanelIndex}, но выполняется в JVM над исходным кодом
+ * страницы, полученным одним обращением к браузеру или загруженным {@link com.vilkovandrew.yandex.market.pages.HttpCatalogEngine}.
+ * </p>
+ * <p>
+ * Разбор через {@link #parseAsync(String, String)} выполняется пулом потоков, поэтому браузер переходит
+ * на следующую страницу, пока разбираются предыдущие.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class PageSnapshot {
+    /**
+     * Пул потоков разбора страниц.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final ExecutorService EXECUTOR =
+            Executors.newFixedThreadPool(Math.max(1, Properties.appProperties.getSnapshotParseThreads()), r -> {
+                Thread thread = new Thread(r, "page-snapshot-parser");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * Адрес страницы, относительно которого разрешаются ссылки
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final String url;
+
+    /**
+     * Товары страницы в порядке списка
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final List<Product> products;
+
+    /**
+     * Состояние панели фильтров по идентификатору фильтра: выбранные значения или значения полей диапазона
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final Map<String, List<String>> filterSelection;
+
+    /**
+     * Наибольший номер страницы в блоке пагинации
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final int pageCount;
+
+    /**
+     * Количество товаров, цену которых не удалось разобрать
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final int unparseablePrices;
+
+    /**
+     * Конструктор класса {@link PageSnapshot}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param url               адрес страницы
+     * @param products          товары страницы
+     * @param filterSelection   состояние панели фильтров
+     * @param pageCount         наибольший номер страницы
+     * @param unparseablePrices количество неразобранных цен
+     */
+    private PageSnapshot(String url, List<Product> products, Map<String, List<String>> filterSelection,
+                         int pageCount, int unparseablePrices) {
+        this.url = url;
+        this.products = products;
+        this.filterSelection = filterSelection;
+        this.pageCount = pageCount;
+        this.unparseablePrices = unparseablePrices;
+    }
+
+    /**
+     * Разбор исходного кода страницы каталога.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param html        исходный код страницы
+     * @param url         адрес страницы для разрешения относительных ссылок
+     * @param priceParser разбор цен, не используемый одновременно другими потоками
+     * @return снимок страницы
+     */
+    public static PageSnapshot parse(String html, String url, PriceParser priceParser) {
+        Document document = Jsoup.parse(html, url);
+        int unparseableBefore = priceParser.getUnparseable();
+        List<Product> products = new ArrayList<>();
+        for (Element a : document.select("[data-test-id=virtuoso-item-list] article h3[data-zone-name=title] > a[href]")) {
+            String link = a.absUrl("href");
+            products.add(priceParser.toProduct(a.text(), link.isEmpty() ? a.attr("href") : link, getPriceText(a)));
+        }
+
+        Map<String, List<String>> filterSelection = new LinkedHashMap<>();
+        Element panel = document.selectFirst("[data-grabber=SearchFilters]");
+        if (panel != null) {
+            for (Element block : panel.select("[data-filter-id]")) {
+                List<String> selected = new ArrayList<>();
+                if (block.selectFirst("[data-auto=filter-range-min]") != null) {
+                    selected.add(block.select("input[data-auto=filter-range-min], [data-auto=filter-range-min] input").val());
+                    selected.add(block.select("input[data-auto=filter-range-max], [data-auto=filter-range-max] input").val());
+                }
+                for (Element value : block.select("[data-filter-value-id]")) {
+                    Element label = value.selectFirst("label");
+                    if (label == null || label.text().isEmpty()) continue;
+                    if (value.selectFirst("input[checked]") != null) selected.add(label.text());
+                }
+                filterSelection.put(block.attr("data-filter-id"), Collections.unmodifiableList(selected));
+            }
+        }
+
+        int pageCount = 0;
+        for (Element page : document.select("[data-auto^=pagination-page]")) {
+            String number = page.text().replaceAll("\\s", "");
+            if (number.matches("\\d{1,9}")) pageCount = Math.max(pageCount, Integer.parseInt(number));
+        }
+        return new PageSnapshot(url, Collections.unmodifiableList(products), Collections.unmodifiableMap(filterSelection),
+                pageCount, priceParser.getUnparseable() - unparseableBefore);
+    }
+
+    /**
+     * Разбор исходного кода страницы каталога в пуле потоков разбора.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param html исходный код страницы
+     * @param url  адрес страницы для разрешения относительных ссылок
+     * @return {@link CompletableFuture} со снимком страницы
+     */
+    public static CompletableFuture<PageSnapshot> parseAsync(String html, String url) {
+        return CompletableFuture.supplyAsync(() -> parse(html, url, new PriceParser()),
+                StepLatencies.propagating(EXECUTOR));
+    }
+
+    /**
+     * Получение текста цены товара в том же виде, что и у скрипта получения товаров: текущая цена
+     * и тексты блока цены построчно.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param a ссылка заголовка товара
+     * @return текст цены, пустой если блока цены нет
+     */
+    private static String getPriceText(Element a) {
+        Element article = a.closest("article");
+        Element zone = article == null ? null : article.selectFirst("[data-zone-name=price]");
+        if (zone == null) return "";
+        StringBuilder text = new StringBuilder();
+        for (Element span : zone.select("span")) {
+            if (span.attributesSize() == 0) {
+                text.append(span.text());
+                break;
+            }
+        }
+        for (Element element : zone.getAllElements()) {
+            for (TextNode node : element.textNodes()) {
+                if (!node.isBlank()) text.append('\n').append(node.text().trim());
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Получение адреса страницы.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return адрес страницы
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Получение товаров страницы.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return {@link List} содержащий товары
+     */
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    /**
+     * Получение состояния фильтра на панели.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param filterId идентификатор фильтра, значение атрибута data-filter-id
+     * @return для фильтра диапазона - значения полей минимума и максимума, затем выбранные значения,
+     * для остальных - названия выбранных значений; пустой если фильтра нет
+     */
+    public List<String> getFilterSelection(String filterId) {
+        return filterSelection.getOrDefault(filterId, Collections.emptyList());
+    }
+
+    /**
+     * Получение наибольшего номера страницы в блоке пагинации.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return номер страницы, 0 если пагинации нет
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * Получение количества товаров, цену которых не удалось разобрать.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return количество товаров без цены
+     */
+    public int getUnparseablePrices() {
+        return unparseablePrices;
+    }
+
+    /**
+     * Получение строкового представления снимка.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return строковое представление снимка.
+     */
+    @Override
+    public String toString() {
+        return "PageSnapshot{" +
+                "url='" + url + '\'' +
+                ", products=" + products.size() +
+                ", filters=" + filterSelection.size() +
+                ", pageCount=" + pageCount +
+                ", unparseablePrices=" + unparseablePrices +
+                '}';
+    }
+}
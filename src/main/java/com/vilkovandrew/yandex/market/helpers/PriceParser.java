@@ -0,0 +1,268 @@
+package com.vilkovandrew.yandex.market.helpers;
+
+/**
+ * Разбор текста цены товара за один проход без создания объектов.
+ * <p>
+ * Из текста извлекаются числа, в которых разряды могут разделяться пробелом, неразрывным или узким пробелом.
+ * Первое число - текущая цена, первое следующее за ним число больше неё - старая (зачёркнутая) цена,
+ * число со знаком '%' - скидка. Остальной текст ("от", "₽", подписи) пропускается. Если скидка не указана явно,
+ * она вычисляется по старой цене. Текст без цены учитывается в счётчике неразобранных.
+ * </p>
+ * <p>
+ * Результат последнего разбора хранится в полях экземпляра, поэтому экземпляр не потокобезопасен
+ * и используется одним потоком.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class PriceParser {
+    /**
+     * Значение цены, которую не удалось разобрать
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    public static final int UNPARSEABLE = Integer.MIN_VALUE;
+
+    /**
+     * Текущая цена последнего разобранного текста
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private int price;
+
+    /**
+     * Старая цена последнего разобранного текста, 0 если её нет
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private int oldPrice;
+
+    /**
+     * Скидка последнего разобранного текста в процентах, 0 если её нет
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private int discount;
+
+    /**
+     * Количество разобранных текстов
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private int parsed;
+
+    /**
+     * Количество текстов, в которых цену найти не удалось
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private int unparseable;
+
+    /**
+     * Разбор текста цены.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param text текст цены, может быть null
+     * @return true если текущая цена найдена
+     */
+    public boolean parse(CharSequence text) {
+        price = UNPARSEABLE;
+        oldPrice = 0;
+        discount = 0;
+        int length = text == null ? 0 : text.length();
+        long value = 0;
+        boolean inNumber = false;
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? text.charAt(i) : '\n';
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if (value > Integer.MAX_VALUE) value = Integer.MAX_VALUE + 1L;
+                inNumber = true;
+                continue;
+            }
+            if (!inNumber) continue;
+            if (isGroupSeparator(c) && isGroup(text, i + 1, length)) continue;
+            accept(value, isPercent(text, i, length));
+            value = 0;
+            inNumber = false;
+        }
+        if (discount == 0 && oldPrice > 0)
+            discount = (int) Math.round((oldPrice - price) * 100.0 / oldPrice);
+        if (price == UNPARSEABLE) {
+            unparseable++;
+            return false;
+        }
+        parsed++;
+        return true;
+    }
+
+    /**
+     * Получение текущей цены последнего разобранного текста.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return цена или {@link #UNPARSEABLE}, если цену не удалось разобрать
+     */
+    public int getPrice() {
+        return price;
+    }
+
+    /**
+     * Получение старой цены последнего разобранного текста.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return старая цена или 0, если её нет
+     */
+    public int getOldPrice() {
+        return oldPrice;
+    }
+
+    /**
+     * Получение скидки последнего разобранного текста.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return скидка в процентах или 0, если её нет
+     */
+    public int getDiscount() {
+        return discount;
+    }
+
+    /**
+     * Получение количества разобранных текстов с момента создания или {@link #resetCounters()}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return количество разобранных текстов
+     */
+    public int getParsed() {
+        return parsed;
+    }
+
+    /**
+     * Получение количества текстов без цены с момента создания или {@link #resetCounters()}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return количество неразобранных текстов
+     */
+    public int getUnparseable() {
+        return unparseable;
+    }
+
+    /**
+     * Сброс счётчиков разобранных и неразобранных текстов.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    public void resetCounters() {
+        parsed = 0;
+        unparseable = 0;
+    }
+
+    /**
+     * Разбор текста цены в новый товар.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param header    заголовок товара
+     * @param link      ссылка на товар
+     * @param priceText текст цены
+     * @return товар с ценами из текста
+     */
+    public Product toProduct(String header, String link, CharSequence priceText) {
+        parse(priceText);
+        return new Product(header, link, price, oldPrice, discount);
+    }
+
+    /**
+     * Учёт очередного числа из текста.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param value   значение числа
+     * @param percent признак числа со знаком '%'
+     */
+    private void accept(long value, boolean percent) {
+        if (value > Integer.MAX_VALUE) return;
+        if (percent) {
+            if (discount == 0 && value <= 100) discount = (int) value;
+        } else if (price == UNPARSEABLE) {
+            price = (int) value;
+        } else if (oldPrice == 0 && value > price) {
+            oldPrice = (int) value;
+        }
+    }
+
+    /**
+     * Проверка символа-разделителя разрядов.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param c символ
+     * @return true для пробела, неразрывного и узких пробелов
+     */
+    private static boolean isGroupSeparator(char c) {
+        return c == ' ' || c == '\u00A0' || c == '\u2009' || c == '\u202F';
+    }
+
+    /**
+     * Проверка, что с позиции начинается группа разрядов: ровно три цифры.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param text   текст
+     * @param from   позиция после разделителя
+     * @param length длина текста
+     * @return true если за разделителем следуют ровно три цифры
+     */
+    private static boolean isGroup(CharSequence text, int from, int length) {
+        if (from + 3 > length) return false;
+        for (int i = from; i < from + 3; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        if (from + 3 == length) return true;
+        char next = text.charAt(from + 3);
+        return next < '0' || next > '9';
+    }
+
+    /**
+     * Проверка, что число заканчивается знаком '%', возможно через пробелы.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param text   текст
+     * @param from   позиция после числа
+     * @param length длина текста
+     * @return true если за числом следует '%'
+     */
+    private static boolean isPercent(CharSequence text, int from, int length) {
+        for (int i = from; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '%') return true;
+            if (!isGroupSeparator(c)) return false;
+        }
+        return false;
+    }
+}
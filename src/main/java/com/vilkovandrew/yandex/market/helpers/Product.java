@@ -1,9 +1,5 @@
 package com.vilkovandrew.yandex.market.helpers;
 
-import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * Класс представляющий товар.
  *
@@ -32,12 +28,26 @@ public class Product {
      */
     private final int price;
     /**
-     * Паттерн для отделение ссылки на товар от параметров
+     * Старая (зачёркнутая) цена товара, 0 если её нет
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final int oldPrice;
+    /**
+     * Скидка на товар в процентах, 0 если её нет
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final int discount;
+    /**
+     * 64-битный отпечаток канонического ключа
      * <p>
      * Автор: Вилков Андрей
      * </p>
      */
-    private static final Pattern URL_PATTERN = Pattern.compile("^(.[^?]+)[?]?.*$");
+    private final long fingerprint;
 
     /**
      * Конструктор класса {@link Product}.
@@ -50,9 +60,29 @@ public class Product {
      * @param price  цена на товар
      */
     public Product(String header, String link, int price) {
+        this(header, link, price, 0, 0);
+    }
+
+    /**
+     * Конструктор класса {@link Product} со старой ценой и скидкой.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param header   заголовок фильтра
+     * @param link     ссылка на товар
+     * @param price    цена на товар
+     * @param oldPrice старая цена на товар, 0 если её нет
+     * @param discount скидка в процентах, 0 если её нет
+     * @see PriceParser
+     */
+    public Product(String header, String link, int price, int oldPrice, int discount) {
         this.header = header;
         this.link = link;
         this.price = price;
+        this.oldPrice = oldPrice;
+        this.discount = discount;
+        this.fingerprint = fingerprint(getKey());
     }
 
     /**
@@ -79,6 +109,36 @@ public class Product {
         return link;
     }
 
+    /**
+     * Получение канонического ключа товара.
+     * <p>
+     * Ключ состоит из заголовка и пути ссылки без адреса сайта, параметров и якоря, поэтому не зависит
+     * от адреса сайта и параметров отслеживания. Ключ не хранится в товаре, а строится при каждом вызове:
+     * товары сравниваются по отпечатку ключа, а сам ключ нужен только при совпадении отпечатков.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return канонический ключ товара
+     */
+    public String getKey() {
+        return header + '\n' + canonicalPath(link);
+    }
+
+    /**
+     * Получение 64-битного отпечатка канонического ключа товара.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return отпечаток ключа
+     * @see ProductIndex
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
     /**
      * Получение строкового представления товара.
      * <p>
@@ -93,6 +153,8 @@ public class Product {
                 "header='" + header + '\'' +
                 ", link='" + link + '\'' +
                 ", price=" + price +
+                ", oldPrice=" + oldPrice +
+                ", discount=" + discount +
                 '}';
     }
 
@@ -108,6 +170,43 @@ public class Product {
         return price;
     }
 
+    /**
+     * Получение старой (зачёркнутой) цены товара.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return старая цена товара или 0, если её нет
+     */
+    public int getOldPrice() {
+        return oldPrice;
+    }
+
+    /**
+     * Получение скидки на товар.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return скидка в процентах или 0, если её нет
+     */
+    public int getDiscount() {
+        return discount;
+    }
+
+    /**
+     * Проверка, что цена товара была разобрана.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return false если цену не удалось разобрать
+     * @see PriceParser#UNPARSEABLE
+     */
+    public boolean hasPrice() {
+        return price != PriceParser.UNPARSEABLE;
+    }
+
     /**
      * Метод сравнения товаров
      * <p>
@@ -122,11 +221,7 @@ public class Product {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Product product = (Product) o;
-        Matcher matcher = URL_PATTERN.matcher(getLink());
-        String currentUrl = matcher.find() ? matcher.group(1) : getLink();
-        matcher = URL_PATTERN.matcher(product.getLink());
-        String targetUrl = matcher.find() ? matcher.group(1) : product.getLink();
-        return Objects.equals(getHeader(), product.getHeader()) && Objects.equals(currentUrl, targetUrl);
+        return fingerprint == product.fingerprint && getKey().equals(product.getKey());
     }
 
     /**
@@ -139,8 +234,56 @@ public class Product {
      */
     @Override
     public int hashCode() {
-        Matcher matcher = URL_PATTERN.matcher(getLink());
-        String currentUrl = matcher.find() ? matcher.group(1) : getLink();
-        return Objects.hash(getHeader(), currentUrl);
+        return (int) (fingerprint ^ (fingerprint >>> 32));
+    }
+
+    /**
+     * Получение пути ссылки без схемы, адреса сайта, параметров и якоря.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param link ссылка на товар
+     * @return путь ссылки
+     */
+    private static String canonicalPath(String link) {
+        if (link == null) return "";
+        int start = 0;
+        int host = link.startsWith("//") ? 2 : -1;
+        int scheme = link.indexOf("://");
+        if (host < 0 && scheme > 0 && link.lastIndexOf('/', scheme - 1) < 0 && link.lastIndexOf('?', scheme - 1) < 0)
+            host = scheme + 3;
+        if (host > 0) {
+            int path = link.indexOf('/', host);
+            start = path < 0 ? link.length() : path;
+        }
+        int end = link.length();
+        for (int i = start; i < end; i++) {
+            char c = link.charAt(i);
+            if (c == '?' || c == '#') {
+                end = i;
+                break;
+            }
+        }
+        return link.substring(start, end);
+    }
+
+    /**
+     * Вычисление 64-битного отпечатка строки по алгоритму FNV-1a.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param value строка
+     * @return отпечаток строки
+     */
+    private static long fingerprint(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            hash = (hash ^ (c & 0xff)) * 0x100000001b3L;
+            hash = (hash ^ (c >>> 8)) * 0x100000001b3L;
+        }
+        return hash;
     }
 }
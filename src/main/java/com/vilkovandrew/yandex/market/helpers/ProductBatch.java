@@ -0,0 +1,106 @@
+package com.vilkovandrew.yandex.market.helpers;
+
+import java.util.List;
+
+/**
+ * Класс представляющий товары в колоночном виде для проверки фильтрами.
+ * <p>
+ * Цены и заголовки в нижнем регистре вычисляются один раз при создании пачки,
+ * после чего все фильтры работают с массивами без обращения к объектам {@link Product}.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class ProductBatch {
+    /**
+     * Товары пачки
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final List<Product> products;
+    /**
+     * Цены товаров
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final int[] prices;
+    /**
+     * Заголовки товаров в нижнем регистре
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final String[] lowerCaseHeaders;
+
+    /**
+     * Конструктор класса {@link ProductBatch}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param products товары
+     */
+    public ProductBatch(List<Product> products) {
+        this.products = products;
+        this.prices = new int[products.size()];
+        this.lowerCaseHeaders = new String[products.size()];
+        for (int i = 0; i < prices.length; i++) {
+            Product product = products.get(i);
+            prices[i] = product.getPrice();
+            lowerCaseHeaders[i] = product.getHeader().toLowerCase();
+        }
+    }
+
+    /**
+     * Получение количества товаров.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return количество товаров
+     */
+    public int size() {
+        return prices.length;
+    }
+
+    /**
+     * Получение товара по номеру.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param index номер товара в пачке
+     * @return товар
+     */
+    public Product getProduct(int index) {
+        return products.get(index);
+    }
+
+    /**
+     * Получение цены товара по номеру.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param index номер товара в пачке
+     * @return цена товара
+     */
+    public int getPrice(int index) {
+        return prices[index];
+    }
+
+    /**
+     * Получение заголовка товара в нижнем регистре по номеру.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param index номер товара в пачке
+     * @return заголовок товара в нижнем регистре
+     */
+    public String getLowerCaseHeader(int index) {
+        return lowerCaseHeaders[index];
+    }
+}
@@ -0,0 +1,41 @@
+package com.vilkovandrew.yandex.market.helpers;
+
+/**
+ * Класс предоставляющий способы получения товаров со страницы каталога.
+ *
+ * @author Вилков Андрей
+ */
+public enum ProductExtractionMode {
+    /**
+     * Получение данных каждого товара отдельными запросами к {@link org.openqa.selenium.WebElement}
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    ELEMENTS,
+    /**
+     * Получение данных всех товаров страницы одним вызовом JavaScript
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    SCRIPT,
+    /**
+     * Пошаговый сбор товаров с прокруткой виртуализированного списка
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @see com.vilkovandrew.yandex.market.pages.VirtuosoHarvester
+     */
+    HARVEST,
+    /**
+     * Получение исходного кода страницы одним обращением и разбор товаров в JVM
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @see PageSnapshot
+     */
+    SNAPSHOT;
+}
@@ -0,0 +1,211 @@
+package com.vilkovandrew.yandex.market.helpers;
+
+import java.util.Collection;
+
+/**
+ * Индекс товаров для поиска повторов при обходе страниц.
+ * <p>
+ * Хранит только 64-битные отпечатки канонических ключей товаров ({@link Product#getFingerprint()})
+ * в таблице с открытой адресацией, поэтому на товар приходится порядка 16 байт памяти,
+ * а поиск и добавление выполняются за O(1) без сравнения строк.
+ * Методы класса синхронизированы, индекс можно заполнять из потока проверки конвейера.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class ProductIndex {
+    /**
+     * Значение пустой ячейки таблицы
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final long EMPTY = 0L;
+
+    /**
+     * Замена отпечатка, совпадающего со значением пустой ячейки
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final long ZERO_REPLACEMENT = 0x9e3779b97f4a7c15L;
+
+    /**
+     * Начальная ёмкость таблицы
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * Таблица отпечатков, размер всегда степень двойки
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private long[] table = new long[INITIAL_CAPACITY];
+
+    /**
+     * Количество уникальных товаров
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private int size;
+
+    /**
+     * Количество повторно встреченных товаров
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private int duplicates;
+
+    /**
+     * Добавление товара в индекс.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param product товар
+     * @return true если товар встречен впервые, false если это повтор
+     */
+    public synchronized boolean add(Product product) {
+        long fingerprint = normalize(product.getFingerprint());
+        int slot = slot(table, fingerprint);
+        if (table[slot] == fingerprint) {
+            duplicates++;
+            return false;
+        }
+        table[slot] = fingerprint;
+        if (++size * 4 > table.length * 3) grow();
+        return true;
+    }
+
+    /**
+     * Добавление товаров одной страницы в индекс.
+     * <p>
+     * Повтором считается только товар, встреченный на предыдущих страницах: повторы внутри переданных товаров
+     * не добавляются и не учитываются в {@link #getDuplicates()}.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param products товары страницы
+     * @return количество товаров, встреченных впервые
+     */
+    public synchronized int addAll(Collection<Product> products) {
+        long[] page = new long[Integer.highestOneBit(Math.max(1, products.size()) * 2) * 2];
+        int added = 0;
+        for (Product product : products) {
+            long fingerprint = normalize(product.getFingerprint());
+            int pageSlot = slot(page, fingerprint);
+            if (page[pageSlot] == fingerprint) continue;
+            page[pageSlot] = fingerprint;
+            if (add(product)) added++;
+        }
+        return added;
+    }
+
+    /**
+     * Проверка наличия товара в индексе.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param product товар
+     * @return true если товар уже добавлен, в противном случае false
+     */
+    public synchronized boolean contains(Product product) {
+        long fingerprint = normalize(product.getFingerprint());
+        return table[slot(table, fingerprint)] == fingerprint;
+    }
+
+    /**
+     * Получение количества уникальных товаров.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return количество уникальных товаров
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Получение количества повторно встреченных товаров.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return количество повторов
+     */
+    public synchronized int getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Получение строкового представления индекса.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return строковое представление индекса.
+     */
+    @Override
+    public synchronized String toString() {
+        return "ProductIndex{" +
+                "size=" + size +
+                ", duplicates=" + duplicates +
+                '}';
+    }
+
+    /**
+     * Увеличение таблицы в два раза с переносом отпечатков.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private void grow() {
+        long[] grown = new long[table.length * 2];
+        for (long fingerprint : table) {
+            if (fingerprint != EMPTY) grown[slot(grown, fingerprint)] = fingerprint;
+        }
+        table = grown;
+    }
+
+    /**
+     * Поиск ячейки отпечатка линейным пробированием.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param table       таблица отпечатков
+     * @param fingerprint отпечаток
+     * @return индекс ячейки с этим отпечатком или первой пустой ячейки
+     */
+    private static int slot(long[] table, long fingerprint) {
+        int mask = table.length - 1;
+        int slot = (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+        while (table[slot] != EMPTY && table[slot] != fingerprint) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Замена отпечатка, совпадающего со значением пустой ячейки.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param fingerprint отпечаток
+     * @return отпечаток, отличный от значения пустой ячейки
+     */
+    private static long normalize(long fingerprint) {
+        return fingerprint == EMPTY ? ZERO_REPLACEMENT : fingerprint;
+    }
+}
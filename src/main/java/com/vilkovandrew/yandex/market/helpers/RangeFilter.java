@@ -72,7 +72,20 @@ public class RangeFilter extends Filter {
      */
     @Override
     public boolean isMatches(Product product) {
-        return product.getPrice() >= minValue && product.getPrice() <= maxValue;
+        return isMatches(product.getPrice());
+    }
+
+    /**
+     * Проверка попадания цены в диапазон фильтра.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param price цена товара
+     * @return true если цена входит в диапазон, в противном случае false
+     */
+    public boolean isMatches(int price) {
+        return price >= minValue && price <= maxValue;
     }
 
     /**
@@ -0,0 +1,54 @@
+package com.vilkovandrew.yandex.market.pages;
+
+import com.vilkovandrew.yandex.market.helpers.Product;
+
+import java.util.List;
+
+/**
+ * Интерфейс чтения страниц результатов каталога, общий для браузера и HTTP клиента.
+ *
+ * @author Вилков Андрей
+ * @see CatalogListPage
+ * @see HttpCatalogEngine
+ */
+public interface CatalogEngine {
+    /**
+     * Получение товаров с текущей страницы результатов.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return {@link List} содержащий товары
+     */
+    List<Product> getProductOnPage();
+
+    /**
+     * Переход на страницу результатов по номеру.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param pageNumber номер страницы
+     */
+    void goToPage(int pageNumber);
+
+    /**
+     * Получение количества страниц результатов.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return наибольший номер страницы в блоке пагинации, 0 если пагинации нет
+     */
+    int getPageCount();
+
+    /**
+     * Получение адреса текущей страницы результатов.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return адрес страницы
+     */
+    String getCurrentUrl();
+}
@@ -1,21 +1,42 @@
 package com.vilkovandrew.yandex.market.pages;
 
 import com.vilkovandrew.helpers.Assertions;
+import com.vilkovandrew.helpers.Properties;
+import com.vilkovandrew.helpers.WaitPolicy;
+import com.vilkovandrew.helpers.Waits;
+import com.vilkovandrew.yandex.market.helpers.CheckBoxFilter;
+import com.vilkovandrew.yandex.market.helpers.Filter;
+import com.vilkovandrew.yandex.market.helpers.FilterBlock;
+import com.vilkovandrew.yandex.market.helpers.FilterType;
+import com.vilkovandrew.yandex.market.helpers.PageSnapshot;
+import com.vilkovandrew.yandex.market.helpers.PriceParser;
 import com.vilkovandrew.yandex.market.helpers.Product;
+import com.vilkovandrew.yandex.market.helpers.ProductExtractionMode;
+import com.vilkovandrew.yandex.market.helpers.RangeFilter;
 import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.JavascriptException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.interactions.Actions;
 import org.openqa.selenium.interactions.WheelInput;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 
-import java.time.Duration;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static java.lang.String.format;
 
@@ -24,7 +45,7 @@ import static java.lang.String.format;
  *
  * @author Vilkov Andrew
  */
-public class CatalogListPage {
+public class CatalogListPage implements CatalogEngine {
     /**
      * Локатор для списка товаров.
      * <p>
@@ -70,6 +91,80 @@ public class CatalogListPage {
      */
     public static final By LOCATOR_PRODUCT_BLOCK = By.xpath("./ancestor::article");
 
+    /**
+     * Скрипт получения заголовка, ссылки и цены всех товаров списка за один вызов.
+     * <p>
+     * Повторяет логику локаторов {@link #LOCATOR_PRODUCT_ITEM} и {@link #LOCATOR_PRICE_ITEM}. Текст цены - текущая
+     * цена и весь текст блока цены, из которого {@link PriceParser} берёт старую цену и скидку.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final String SCRIPT_EXTRACT_PRODUCTS =
+            "var list = document.querySelector(\"[data-test-id='virtuoso-item-list']\");" +
+            "if (!list) return null;" +
+            "var result = [];" +
+            "list.querySelectorAll(\"article h3[data-zone-name='title'] > a[href]\").forEach(function (a) {" +
+            "  var price = '';" +
+            "  var zone = a.closest('article').querySelector(\"[data-zone-name='price']\");" +
+            "  if (zone) {" +
+            "    var spans = zone.querySelectorAll('span');" +
+            "    for (var i = 0; i < spans.length; i++) {" +
+            "      if (spans[i].attributes.length === 0) { price = spans[i].innerText; break; }" +
+            "    }" +
+            "    price += '\\n' + zone.innerText;" +
+            "  }" +
+            "  result.push([a.innerText.trim(), a.href, price]);" +
+            "});" +
+            "return result;";
+
+    /**
+     * Скрипт получения наибольшего номера страницы из блока пагинации.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final String SCRIPT_PAGE_COUNT =
+            "var max = 0;" +
+            "document.querySelectorAll(\"[data-auto^='pagination-page']\").forEach(function (e) {" +
+            "  var n = parseInt((e.innerText || '').replace(/\\s/g, ''), 10);" +
+            "  if (n > max) max = n;" +
+            "});" +
+            "return max;";
+
+    /**
+     * Идентификатор фильтра цены, который задаётся параметрами pricefrom и priceto.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final String PRICE_FILTER_ID = "glprice";
+
+    /**
+     * Индексы панели фильтров по сессии браузера и пути страницы каталога.
+     * <p>
+     * Идентификаторы фильтров и значений для категории не меняются, поэтому индекс используется для построения
+     * адреса без проверки. Для получения элементов индекс проверяется по поколению и перестраивается,
+     * если панель изменилась или страница была загружена заново. Поколение принадлежит панели конкретной вкладки,
+     * поэтому индексы хранятся отдельно для каждой сессии, и параллельные тесты не сбрасывают индексы друг друга.
+     * Индекс не ссылается на сессию, поэтому записи закрытых сессий освобождаются сборщиком мусора.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final Map<WebDriver, Map<String, FilterPanelIndex>> FILTER_PANEL_CACHE =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Количество обращений к WebDriver, необходимых для получения одного товара поэлементно.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final int ROUND_TRIPS_PER_PRODUCT = 4;
+
     /**
      * Переменная для хранения экземпляра класса {@link WebDriver}.
      * <p>
@@ -79,20 +174,52 @@ public class CatalogListPage {
     private final WebDriver driver;
 
     /**
-     * Переменная для хранения экземпляра класса {@link WebDriverWait}.
+     * Переменная для хранения экземпляра класса {@link Waits}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final Waits waits;
+
+    /**
+     * Переменная для хранения экземпляра класса {@link ListReadinessDetector}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final ListReadinessDetector readinessDetector;
+
+    /**
+     * Время стабилизации списка товаров при последнем ожидании в миллисекундах.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private long lastSettleMillis;
+
+    /**
+     * Количество обращений к WebDriver, сэкономленных при последнем получении товаров со страницы.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private int savedRoundTrips;
+
+    /**
+     * Сбор товаров при последнем получении потока товаров со страницы.
      * <p>
      * Автор: Вилков Андрей
      * </p>
      */
-    private final WebDriverWait wait;
+    private VirtuosoHarvester harvester;
 
     /**
-     * Локатор для блоков фильтров.
+     * Разбор цен товаров со счётчиком цен, которые не удалось разобрать при последнем получении товаров.
      * <p>
      * Автор: Вилков Андрей
      * </p>
      */
-    private static final By LOCATOR_FILTER_BLOCK = By.xpath("//*[@data-grabber='SearchFilters']//*[@data-filter-id]");
+    private final PriceParser priceParser = new PriceParser();
 
     /**
      * Поле минимального значения фильтра диапазона
@@ -126,6 +253,14 @@ public class CatalogListPage {
      */
     private static final By LOCATOR_NEXT_PAGE_BUTTON = By.xpath("//*[@data-auto='pagination-next']");
 
+    /**
+     * Локатор номеров страниц в блоке пагинации.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final By LOCATOR_PAGINATION_PAGE = By.cssSelector("[data-auto^='pagination-page']");
+
     /**
      * Локатор для списка товаров.
      * <p>
@@ -176,7 +311,18 @@ public class CatalogListPage {
      */
     public CatalogListPage(WebDriver driver) {
         this.driver = driver;
-        wait = new WebDriverWait(driver, Duration.ofSeconds(60));
+        waits = new Waits(driver);
+        readinessDetector = new ListReadinessDetector(driver);
+    }
+
+    /**
+     * Ожидание загрузки страницы каталога.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    public void waitPageLoaded() {
+        waits.until(WaitPolicy.READINESS, ExpectedConditions.presenceOfElementLocated(PAGE_LOAD_LOCATOR));
     }
 
     /**
@@ -191,13 +337,13 @@ public class CatalogListPage {
      * @param maxValue   максимальное значение диапазона
      */
     public void setRangeFilter(String filterName, int minValue, int maxValue) {
-        Optional<WebElement> filterBlock = getFilterBlockElement(filterName);
+        Optional<WebElement> filterBlock = getFilterBlockElement(filterName, FilterType.RANGE);
 
         Assertions.assertTrue(filterBlock.isPresent(), format("Фильтр с именем '%s' не найден.", filterName));
 
         WebElement filterElement = filterBlock.get();
-        WebElement minValueField = filterElement.findElement(MIN_VALUE_RANGE_FILTER);
-        WebElement maxValueField = filterElement.findElement(MAX_VALUE_RANGE_FILTER);
+        WebElement minValueField = waits.present(filterElement, MIN_VALUE_RANGE_FILTER);
+        WebElement maxValueField = waits.present(filterElement, MAX_VALUE_RANGE_FILTER);
 
         new Actions(driver)
                 .scrollToElement(minValueField)
@@ -206,9 +352,7 @@ public class CatalogListPage {
                 .sendKeys(maxValueField, String.valueOf(maxValue))
                 .perform();
 
-        List<WebElement> preloader = driver.findElements(LOCATOR_PRELOADER);
-        if (preloader.size() > 0)
-            wait.withTimeout(Duration.ofSeconds(20)).until(ExpectedConditions.stalenessOf(preloader.get(0)));
+        lastSettleMillis = readinessDetector.awaitSettled();
     }
 
     /**
@@ -222,30 +366,28 @@ public class CatalogListPage {
      * @param values     значения фильтра
      */
     public void setManyValueFilter(String filterName, List<String> values) {
-        Optional<WebElement> filterBlock = getFilterBlockElement(filterName);
+        Optional<WebElement> filterBlock = getFilterBlockElement(filterName, FilterType.CHECKBOX);
 
         Assertions.assertTrue(filterBlock.isPresent(), format("Фильтр с именем '%s' не найден.", filterName));
 
         WebElement filterElement = filterBlock.get();
 
-        if (filterElement.findElements(MORE_VALUE_BUTTON).size() > 0) {
-            WebElement moreButton = filterElement.findElement(MORE_VALUE_BUTTON);
-            if (!Boolean.parseBoolean(moreButton.getDomAttribute("aria-expanded")))
-                new Actions(driver).scrollToElement(moreButton).click(moreButton).perform();
-        }
+        Optional<WebElement> moreButton = waits.find(filterElement, MORE_VALUE_BUTTON);
+        if (moreButton.isPresent() && !Boolean.parseBoolean(moreButton.get().getDomAttribute("aria-expanded")))
+            new Actions(driver).scrollToElement(moreButton.get()).click(moreButton.get()).perform();
 
-        if (filterElement.findElements(LOCATOR_INPUT_TEXT).size() > 0) {
+        if (!waits.isAbsent(filterElement, LOCATOR_INPUT_TEXT)) {
             for (String value : values) {
-                WebElement inputField = filterElement.findElement(LOCATOR_INPUT_TEXT);
+                WebElement inputField = waits.present(filterElement, LOCATOR_INPUT_TEXT);
                 List<WebElement> presenceValue = filterElement.findElements(LOCATOR_DATA_FILTER_VALUE);
 
                 inputField.clear();
                 new Actions(driver).scrollToElement(inputField).sendKeys(inputField, value).perform();
 
                 if (presenceValue.size() > 0)
-                    wait.until(ExpectedConditions.refreshed(ExpectedConditions.stalenessOf(presenceValue.get(0))));
+                    waits.until(WaitPolicy.STALENESS, ExpectedConditions.refreshed(ExpectedConditions.stalenessOf(presenceValue.get(0))));
 
-                presenceValue = filterElement.findElements(LOCATOR_DATA_FILTER_VALUE);
+                presenceValue = waits.presentAllOrEmpty(filterElement, LOCATOR_DATA_FILTER_VALUE);
 
                 Assertions.assertNotEquals(0, presenceValue.size(),
                         format("Ожидаем что для фильтра '%s' есть значение '%s', совпадений не найдено.", filterName, value));
@@ -256,34 +398,195 @@ public class CatalogListPage {
                 Assertions.assertTrue(filterValue.isPresent(), "Пункт фильтра '" + value + "' не найден.");
                 WebElement filterValueElement = filterValue.get();
                 filterValueElement.click();
-                List<WebElement> preloader = driver.findElements(LOCATOR_PRELOADER);
-                if (preloader.size() > 0)
-                    wait.withTimeout(Duration.ofSeconds(20)).until(ExpectedConditions.stalenessOf(preloader.get(0)));
+                lastSettleMillis = readinessDetector.awaitSettled();
             }
         }
 
     }
 
+    /**
+     * Установка фильтров одним переходом по адресу с параметрами фильтров.
+     * <p>
+     * Идентификаторы фильтров и их значений читаются с панели фильтров один раз для категории и кэшируются.
+     * Фильтры, для которых параметры определить не удалось, возвращаются для установки через интерфейс.
+     * </p>
+     * <p>
+     * После перехода состояние панели фильтров читается из {@link PageSnapshot}: фильтр, который Маркет не применил,
+     * тоже возвращается для установки через интерфейс. Для фильтра со значениями возвращаются только значения,
+     * которые не отмечены, чтобы интерфейс не снял уже применённые.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param filters список фильтров
+     * @return фильтры, которые не удалось установить через адрес
+     */
+    public List<Filter> setFiltersByUrl(List<Filter> filters) {
+        URI uri = URI.create(driver.getCurrentUrl());
+        Map<String, FilterPanelIndex> cache = getFilterPanelCache();
+        FilterPanelIndex panel = cache.get(uri.getRawPath());
+        if (panel == null) {
+            panel = FilterPanelIndex.build((JavascriptExecutor) driver);
+            if (panel == null) return filters;
+            cache.put(uri.getRawPath(), panel);
+        }
+
+        StringBuilder query = new StringBuilder(uri.getRawQuery() == null ? "" : uri.getRawQuery());
+        List<Filter> unresolved = new ArrayList<>();
+        Map<Filter, String> applied = new LinkedHashMap<>();
+        for (Filter filter : filters) {
+            Optional<FilterBlock> block = panel.find(filter.getFilterName(), filter.getType());
+            String params = block.isPresent() ? getUrlParams(filter, block.get()) : null;
+            if (params == null) {
+                unresolved.add(filter);
+                continue;
+            }
+            applied.put(filter, block.get().getId());
+            if (query.length() > 0) query.append('&');
+            query.append(params);
+        }
+        if (applied.isEmpty()) return unresolved;
+
+        String url = uri.toString();
+        int queryStart = url.indexOf('?');
+        driver.get((queryStart < 0 ? url : url.substring(0, queryStart)) + "?" + query);
+        waits.until(WaitPolicy.READINESS, ExpectedConditions.presenceOfElementLocated(PAGE_LOAD_LOCATOR));
+
+        PageSnapshot snapshot = PageSnapshot.parse(driver.getPageSource(), driver.getCurrentUrl(), priceParser);
+        for (Map.Entry<Filter, String> entry : applied.entrySet()) {
+            Filter missing = getMissing(entry.getKey(), snapshot.getFilterSelection(entry.getValue()));
+            if (missing != null) unresolved.add(missing);
+        }
+        return unresolved;
+    }
+
+    /**
+     * Получение части фильтра, которую Маркет не применил после перехода по адресу.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param filter    фильтр
+     * @param selection состояние фильтра на панели, см. {@link PageSnapshot#getFilterSelection(String)}
+     * @return null если фильтр применён, для фильтра диапазона - сам фильтр,
+     * для фильтра со значениями - фильтр с неотмеченными значениями
+     */
+    private static Filter getMissing(Filter filter, List<String> selection) {
+        switch (filter.getType()) {
+            case RANGE: {
+                RangeFilter rangeFilter = (RangeFilter) filter;
+                boolean applied = selection.size() >= 2
+                        && String.valueOf(rangeFilter.getMinValue()).equals(selection.get(0).replaceAll("\\D", ""))
+                        && String.valueOf(rangeFilter.getMaxValue()).equals(selection.get(1).replaceAll("\\D", ""));
+                return applied ? null : filter;
+            }
+            case CHECKBOX: {
+                List<String> missing = new ArrayList<>();
+                for (String value : ((CheckBoxFilter) filter).getValues()) {
+                    if (selection.stream().noneMatch(value::equalsIgnoreCase)) missing.add(value);
+                }
+                if (missing.isEmpty()) return null;
+                return new CheckBoxFilter(filter.getFilterName(), missing.toArray(new String[0]));
+            }
+            default:
+                return filter;
+        }
+    }
+
+    /**
+     * Получение параметров адреса для фильтра.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param filter фильтр
+     * @param block  блок фильтра на панели
+     * @return параметры адреса или null, если одно из значений фильтра не найдено в блоке
+     */
+    private static String getUrlParams(Filter filter, FilterBlock block) {
+        switch (filter.getType()) {
+            case RANGE: {
+                RangeFilter rangeFilter = (RangeFilter) filter;
+                if (PRICE_FILTER_ID.equals(block.getId()))
+                    return format("pricefrom=%d&priceto=%d", rangeFilter.getMinValue(), rangeFilter.getMaxValue());
+                return "glfilter=" + encode(format("%s:%d~%d", block.getId(), rangeFilter.getMinValue(), rangeFilter.getMaxValue()));
+            }
+            case CHECKBOX: {
+                List<String> valueIds = new ArrayList<>();
+                for (String value : ((CheckBoxFilter) filter).getValues()) {
+                    String valueId = block.getValueId(value);
+                    if (valueId == null) return null;
+                    valueIds.add(valueId);
+                }
+                return "glfilter=" + encode(block.getId() + ":" + String.join(",", valueIds));
+            }
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Кодирование значения параметра адреса.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param value значение параметра
+     * @return закодированное значение
+     */
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     /**
      * Вспомогательный метод для получения блока фильтра по его имени
      * <p>
+     * Блок ищется по индексу панели фильтров и получается одним вызовом JavaScript без прокрутки.
+     * Если панель изменилась с момента построения индекса, индекс перестраивается один раз.
+     * Блок нужного типа предпочитается блоку с тем же именем другого типа.
+     * </p>
+     * <p>
      * Автор: Вилков Андрей
      * </p>
      *
      * @param filterName имя фильтра
+     * @param type       ожидаемый тип фильтра
      * @return {@link Optional<WebElement>} возвращает результат поиска блока фильтра по его имени
      */
-    private Optional<WebElement> getFilterBlockElement(String filterName) {
-        List<WebElement> filtersList = driver.findElements(LOCATOR_FILTER_BLOCK);
+    private Optional<WebElement> getFilterBlockElement(String filterName, FilterType type) {
+        JavascriptExecutor executor = (JavascriptExecutor) driver;
+        String path = URI.create(driver.getCurrentUrl()).getRawPath();
+        Map<String, FilterPanelIndex> cache = getFilterPanelCache();
+        FilterPanelIndex index = cache.get(path);
+        for (int attempt = 0; attempt < 2; attempt++) {
+            if (index == null || attempt > 0) {
+                index = waits.until(WaitPolicy.PRESENCE, d -> FilterPanelIndex.build(executor));
+                cache.put(path, index);
+            }
+            Optional<FilterBlock> block = index.find(filterName, type);
+            if (!block.isPresent()) block = index.find(filterName, null);
+            if (!block.isPresent()) continue;
+            FilterPanelIndex.Fetch fetch = index.fetch(executor, block.get());
+            if (!fetch.isStale()) return fetch.getElement();
+        }
+        return Optional.empty();
+    }
 
-        Optional<WebElement> filterBlock = filtersList.stream()
-                .filter(e -> {
-                    new Actions(driver).scrollToElement(e).perform();
-                    String elementName = e.getText().toUpperCase();
-                    return elementName.contains(filterName.toUpperCase());
-                })
-                .findAny();
-        return filterBlock;
+    /**
+     * Получение индексов панели фильтров сессии этой страницы.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return индексы по пути страницы каталога
+     */
+    private Map<String, FilterPanelIndex> getFilterPanelCache() {
+        return FILTER_PANEL_CACHE.computeIfAbsent(driver, d -> new ConcurrentHashMap<>());
     }
 
     /**
@@ -295,31 +598,219 @@ public class CatalogListPage {
      * @return {@link List} содержащий товары
      * @see Product
      */
+    @Override
     public List<Product> getProductOnPage() {
-        wait.until(ExpectedConditions.presenceOfElementLocated(PAGE_LOAD_LOCATOR));
-        new Actions(driver).scrollToElement(driver.findElement(LOCATOR_SEARCH_INPUT)).perform();
+        if (Properties.appProperties.getProductExtractionMode() == ProductExtractionMode.HARVEST)
+            return streamProductOnPage().collect(Collectors.toList());
+        if (Properties.appProperties.getProductExtractionMode() == ProductExtractionMode.SNAPSHOT) {
+            String url = driver.getCurrentUrl();
+            String pageSource = capturePageSource();
+            priceParser.resetCounters();
+            List<Product> result = PageSnapshot.parse(pageSource, url, priceParser).getProducts();
+            savedRoundTrips = Math.max(0, result.size() * ROUND_TRIPS_PER_PRODUCT - 1);
+            return result;
+        }
+        List<WebElement> elements = waitProductList();
+        savedRoundTrips = 0;
+        priceParser.resetCounters();
+        List<Product> result = null;
+        if (Properties.appProperties.getProductExtractionMode() == ProductExtractionMode.SCRIPT)
+            result = getProductsByScript();
+        if (result == null || result.size() < elements.size()) {
+            priceParser.resetCounters();
+            result = getProductsByElements(elements);
+        } else {
+            savedRoundTrips = result.size() * ROUND_TRIPS_PER_PRODUCT - 1;
+        }
+        return result;
+    }
+
+    /**
+     * Получение ленивого потока товаров со страницы поиска.
+     * <p>
+     * Товары собираются {@link VirtuosoHarvester} по мере потребления потока: прокрутка списка продолжается,
+     * пока потребитель запрашивает товары, и останавливается в конце списка или по достижении
+     * {@link com.vilkovandrew.helpers.AppProperties#getCatalogPageSize()}.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return {@link Stream} содержащий товары
+     * @see Product
+     */
+    public Stream<Product> streamProductOnPage() {
+        return startHarvest().stream();
+    }
+
+    /**
+     * Получение ленивого потока порций товаров со страницы поиска: каждая порция - товары,
+     * отрисованные Virtuoso за один шаг прокрутки.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return {@link Stream} порций товаров
+     * @see VirtuosoHarvester#chunks()
+     */
+    public Stream<List<Product>> streamProductChunksOnPage() {
+        return startHarvest().chunks();
+    }
+
+    /**
+     * Ожидание загрузки списка товаров и создание сбора товаров для текущей страницы.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return сбор товаров
+     */
+    private VirtuosoHarvester startHarvest() {
+        waits.until(WaitPolicy.READINESS, ExpectedConditions.presenceOfElementLocated(PAGE_LOAD_LOCATOR));
+        lastSettleMillis = readinessDetector.awaitSettled();
+        savedRoundTrips = 0;
+        priceParser.resetCounters();
+        harvester = new VirtuosoHarvester(driver, Properties.appProperties.getCatalogPageSize(), priceParser);
+        return harvester;
+    }
+
+    /**
+     * Получение признака того, что последний поток товаров со страницы остановлен по
+     * {@link com.vilkovandrew.helpers.AppProperties#getCatalogPageSize()}, хотя на странице были ещё товары.
+     * <p>
+     * Значение актуально после потребления потока.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return true если часть товаров страницы не попала в поток
+     */
+    public boolean isHarvestTruncated() {
+        return harvester != null && harvester.isTruncated();
+    }
+
+    /**
+     * Получение исходного кода страницы после загрузки списка товаров.
+     * <p>
+     * Весь DOM страницы передаётся одним обращением к WebDriver, товары, цены и панель фильтров
+     * из него разбирает {@link PageSnapshot}.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return исходный код страницы
+     */
+    public String capturePageSource() {
+        waitProductList();
+        return driver.getPageSource();
+    }
+
+    /**
+     * Ожидание загрузки списка товаров текущей страницы.
+     * <p>
+     * Страница прокручивается до конца списка, чтобы Virtuoso отрисовал товары, затем ожидается
+     * стабилизация списка и появление ссылок на товары.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return ссылки на товары в списке
+     */
+    private List<WebElement> waitProductList() {
+        waits.until(WaitPolicy.READINESS, ExpectedConditions.presenceOfElementLocated(PAGE_LOAD_LOCATOR));
+        new Actions(driver).scrollToElement(waits.present(LOCATOR_SEARCH_INPUT)).perform();
 
         scrollToBottom();
 
-        Duration oldDuration = driver.manage().timeouts().getImplicitWaitTimeout();
-        driver.manage().timeouts().implicitlyWait(Duration.ofMillis(500));
+        lastSettleMillis = readinessDetector.awaitSettled();
+        return waits.until(WaitPolicy.READINESS, ExpectedConditions.presenceOfNestedElementsLocatedBy(LOCATOR_VIRTUOSO_ITEM_LIST, LOCATOR_PRODUCT_ITEM));
+    }
+
+    /**
+     * Получение количества обращений к WebDriver, сэкономленных при последнем вызове {@link #getProductOnPage()}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return количество сэкономленных обращений, 0 если товары были получены поэлементно
+     */
+    public int getSavedRoundTrips() {
+        return savedRoundTrips;
+    }
+
+    /**
+     * Получение количества цен, которые не удалось разобрать при последнем получении товаров со страницы.
+     * <p>
+     * Для потока товаров {@link #streamProductOnPage()} значение актуально после его потребления.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return количество товаров без цены
+     * @see PriceParser#getUnparseable()
+     */
+    public int getUnparseablePrices() {
+        return priceParser.getUnparseable();
+    }
 
-        List<WebElement> preloader = driver.findElements(LOCATOR_PRELOADER);
-        if (preloader.size() > 0)
-            wait.withTimeout(Duration.ofSeconds(20)).until(ExpectedConditions.stalenessOf(preloader.get(0)));
-        List<WebElement> elements = wait.until(ExpectedConditions.presenceOfNestedElementsLocatedBy(LOCATOR_VIRTUOSO_ITEM_LIST, LOCATOR_PRODUCT_ITEM));
-        List<Product> result = elements.stream()
+    /**
+     * Получение времени стабилизации списка товаров при последнем ожидании его загрузки.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return время стабилизации в миллисекундах
+     * @see ListReadinessDetector
+     */
+    public long getLastSettleMillis() {
+        return lastSettleMillis;
+    }
+
+    /**
+     * Получение товаров со страницы одним вызовом JavaScript.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return {@link List} содержащий товары или null, если скрипт не смог получить данные
+     */
+    private List<Product> getProductsByScript() {
+        Object rows;
+        try {
+            rows = ((JavascriptExecutor) driver).executeScript(SCRIPT_EXTRACT_PRODUCTS);
+        } catch (JavascriptException e) {
+            return null;
+        }
+        if (!(rows instanceof List)) return null;
+        List<Product> result = new ArrayList<>();
+        for (Object row : (List<?>) rows) {
+            List<?> values = (List<?>) row;
+            result.add(priceParser.toProduct(String.valueOf(values.get(0)), String.valueOf(values.get(1)), String.valueOf(values.get(2))));
+        }
+        return result;
+    }
+
+    /**
+     * Получение товаров со страницы отдельными запросами к каждому элементу.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param elements ссылки на товары в списке
+     * @return {@link List} содержащий товары
+     */
+    private List<Product> getProductsByElements(List<WebElement> elements) {
+        return elements.stream()
                 .map(e -> {
                     String header = e.getText();
                     String link = e.getAttribute("href");
-                    String priceString = e.findElement(LOCATOR_PRICE_ITEM).getText().replaceAll("\\s", "");
-                    int price = Integer.MIN_VALUE;
-                    if (Pattern.matches("\\d+", priceString)) price = Integer.parseInt(priceString);
-                    return new Product(header, link, price);
+                    return priceParser.toProduct(header, link, waits.find(e, LOCATOR_PRICE_ITEM).map(WebElement::getText).orElse(""));
                 })
                 .collect(Collectors.toList());
-        driver.manage().timeouts().implicitlyWait(oldDuration);
-        return result;
     }
 
     /**
@@ -330,16 +821,59 @@ public class CatalogListPage {
      *
      * @param pageNumber номер страницы
      */
+    @Override
     public void goToPage(int pageNumber) {
-        String currentUrl = driver.getCurrentUrl();
+        driver.get(getPageUrl(driver.getCurrentUrl(), pageNumber));
+    }
+
+    /**
+     * Получение адреса страницы результатов по номеру.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param url        адрес любой страницы результатов с установленными фильтрами
+     * @param pageNumber номер страницы
+     * @return адрес страницы с заданным номером
+     */
+    public static String getPageUrl(String url, int pageNumber) {
         Pattern pageCurrentNumberPattern = Pattern.compile(".*(page=\\d+).?");
-        Matcher matcher = pageCurrentNumberPattern.matcher(currentUrl);
-        if (matcher.find()) {
-            currentUrl = currentUrl.replace(matcher.group(1), format("page=%d", pageNumber));
-        } else {
-            currentUrl = format("%s&page=%d", currentUrl, pageNumber);
-        }
-        driver.get(currentUrl);
+        Matcher matcher = pageCurrentNumberPattern.matcher(url);
+        if (matcher.find()) return url.replace(matcher.group(1), format("page=%d", pageNumber));
+        return format("%s%spage=%d", url, url.indexOf('?') < 0 ? "?" : "&", pageNumber);
+    }
+
+    /**
+     * Получение количества страниц результатов по блоку пагинации.
+     * <p>
+     * Блок пагинации отрисовывается после списка товаров, поэтому сначала ожидается загрузка списка,
+     * затем появление номеров страниц в течение {@link WaitPolicy#PRESENCE}.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return наибольший номер страницы в блоке пагинации, 0 если пагинации нет
+     */
+    @Override
+    public int getPageCount() {
+        waitProductList();
+        if (waits.presentAllOrEmpty(driver, LOCATOR_PAGINATION_PAGE).isEmpty()) return 0;
+        Object count = ((JavascriptExecutor) driver).executeScript(SCRIPT_PAGE_COUNT);
+        return count instanceof Number ? ((Number) count).intValue() : 0;
+    }
+
+    /**
+     * Получение адреса текущей страницы браузера.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return адрес страницы
+     */
+    @Override
+    public String getCurrentUrl() {
+        return driver.getCurrentUrl();
     }
 
     /**
@@ -349,7 +883,7 @@ public class CatalogListPage {
      * </p>
      */
     public void scrollToBottom() {
-        WebElement scroller = driver.findElement(LOCATOR_VIRTUOSO_SCROLLER);
+        WebElement scroller = waits.present(LOCATOR_VIRTUOSO_SCROLLER);
         String hight = scroller.getAttribute("clientHeight");
         new Actions(driver).scrollFromOrigin(WheelInput.ScrollOrigin.fromElement(scroller), 0, Integer.parseInt(hight)).perform();
     }
@@ -363,13 +897,33 @@ public class CatalogListPage {
      * @param searchText текст для ввода в строку поиска
      */
     public void search(String searchText) {
-        WebElement searchInput = driver.findElement(LOCATOR_SEARCH_INPUT);
+        WebElement searchInput = waits.present(LOCATOR_SEARCH_INPUT);
         new Actions(driver).scrollToElement(searchInput).perform();
         searchInput.click();
         searchInput.clear();
         searchInput.sendKeys(searchText);
 
-        driver.findElement(LOCATOR_SEARCH_BUTTON).click();
+        waits.present(LOCATOR_SEARCH_BUTTON).click();
+    }
+
+    /**
+     * Проверка наличия кнопки перехода на следующую страницу.
+     * <p>
+     * Пока список товаров обновляется, блок пагинации может быть ещё не отрисован, поэтому сначала ожидается
+     * исчезновение прелоадера по {@link WaitPolicy#ABSENCE}, затем появление номеров страниц по
+     * {@link WaitPolicy#PRESENCE}. Кнопка 'Вперёд' отрисовывается вместе с номерами страниц
+     * и проверяется уже без ожидания.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return true если на странице есть кнопка 'Вперёд'
+     */
+    public boolean hasNextPage() {
+        waits.absent(LOCATOR_PRELOADER);
+        if (waits.presentAllOrEmpty(driver, LOCATOR_PAGINATION_PAGE).isEmpty()) return false;
+        return !waits.isAbsent(driver, LOCATOR_NEXT_PAGE_BUTTON);
     }
 
     /**
@@ -381,16 +935,10 @@ public class CatalogListPage {
      * @return true если есть кнопка перехода на следующую страницу и false если кнопки перехода на следующую страницу нет.
      */
     public boolean goToNextPage() {
-        Duration oldTimeout = driver.manage().timeouts().getImplicitWaitTimeout();
-        driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(10));
-        if (driver.findElements(LOCATOR_NEXT_PAGE_BUTTON).size() > 0) {
-            WebElement nextPageButton = wait.until(ExpectedConditions.visibilityOfElementLocated(LOCATOR_NEXT_PAGE_BUTTON));
-            new Actions(driver).scrollToElement(nextPageButton).click(nextPageButton).perform();
-            driver.manage().timeouts().implicitlyWait(oldTimeout);
-            return true;
-        }
-        driver.manage().timeouts().implicitlyWait(oldTimeout);
-        return false;
+        if (!hasNextPage()) return false;
+        WebElement nextPageButton = waits.until(WaitPolicy.PRESENCE, ExpectedConditions.visibilityOfElementLocated(LOCATOR_NEXT_PAGE_BUTTON));
+        new Actions(driver).scrollToElement(nextPageButton).click(nextPageButton).perform();
+        return true;
     }
 
     /**
@@ -404,22 +952,10 @@ public class CatalogListPage {
      * @return {@link WebElement} указывающий на корневой блок товара
      */
     public WebElement getElementByProduct(Product product) {
-        wait.until(ExpectedConditions.presenceOfElementLocated(PAGE_LOAD_LOCATOR));
-        new Actions(driver).scrollToElement(driver.findElement(LOCATOR_SEARCH_INPUT)).perform();
-
-        scrollToBottom();
-
-        Duration oldDuration = driver.manage().timeouts().getImplicitWaitTimeout();
-        driver.manage().timeouts().implicitlyWait(Duration.ofMillis(500));
-
-        List<WebElement> preloader = driver.findElements(LOCATOR_PRELOADER);
-        if (preloader.size() > 0)
-            wait.withTimeout(Duration.ofSeconds(20)).until(ExpectedConditions.stalenessOf(preloader.get(0)));
-        List<WebElement> elements = wait.until(ExpectedConditions.presenceOfNestedElementsLocatedBy(LOCATOR_VIRTUOSO_ITEM_LIST, LOCATOR_PRODUCT_ITEM));
+        List<WebElement> elements = waitProductList();
         Optional<WebElement> result = elements.stream()
                 .filter(e -> e.getText().equalsIgnoreCase(product.getHeader()))
                 .findAny();
-        driver.manage().timeouts().implicitlyWait(oldDuration);
         if (!result.isPresent())
             Assertions.fail(format("Элемент для продукта '%s' не найден на странице", product.getHeader()));
         return result.get().findElement(LOCATOR_PRODUCT_BLOCK);
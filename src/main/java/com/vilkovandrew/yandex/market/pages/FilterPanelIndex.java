@@ -0,0 +1,266 @@
+package com.vilkovandrew.yandex.market.pages;
+
+import com.vilkovandrew.yandex.market.helpers.FilterBlock;
+import com.vilkovandrew.yandex.market.helpers.FilterType;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Индекс панели фильтров каталога.
+ * <p>
+ * Строится одним вызовом JavaScript: для каждого блока фильтра запоминаются заголовок, data-filter-id,
+ * тип и видимые значения. Тот же вызов помечает панель атрибутом поколения и ставит на неё MutationObserver,
+ * который снимает пометку при любом изменении панели. Поиск блока по индексу - один вызов без прокрутки,
+ * который возвращает элемент только если панель не менялась с момента построения индекса.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class FilterPanelIndex {
+    /**
+     * Атрибут панели фильтров с поколением индекса.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    public static final String GENERATION_ATTRIBUTE = "data-va-gen";
+
+    /**
+     * Скрипт построения индекса.
+     * <p>
+     * Возвращает null, если панели нет, иначе [поколение, [[id, заголовок, диапазон, [[id значения, название]]]]].
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final String SCRIPT_BUILD =
+            "var panel = document.querySelector(\"[data-grabber='SearchFilters']\");" +
+            "if (!panel) return null;" +
+            "var blocks = [];" +
+            "panel.querySelectorAll('[data-filter-id]').forEach(function (block) {" +
+            "  var values = [];" +
+            "  block.querySelectorAll('[data-filter-value-id]').forEach(function (v) {" +
+            "    var label = v.querySelector('label');" +
+            "    if (label && label.innerText.trim()) values.push([v.getAttribute('data-filter-value-id'), label.innerText.trim()]);" +
+            "  });" +
+            "  var title = (block.innerText || '').trim().split('\\n')[0];" +
+            "  var range = block.querySelector(\"[data-auto='filter-range-min']\") !== null;" +
+            "  blocks.push([block.getAttribute('data-filter-id'), title, range, values]);" +
+            "});" +
+            "var generation = Date.now().toString(36) + Math.random().toString(36).slice(2);" +
+            "if (panel.__filterIndexObserver) panel.__filterIndexObserver.disconnect();" +
+            "panel.__filterIndexObserver = new MutationObserver(function () {" +
+            "  panel.removeAttribute('" + GENERATION_ATTRIBUTE + "');" +
+            "  panel.__filterIndexObserver.disconnect();" +
+            "});" +
+            "panel.setAttribute('" + GENERATION_ATTRIBUTE + "', generation);" +
+            "panel.__filterIndexObserver.observe(panel, {childList: true, subtree: true, characterData: true});" +
+            "return [generation, blocks];";
+
+    /**
+     * Скрипт получения элемента блока фильтра.
+     * <p>
+     * Аргументы: поколение индекса и data-filter-id. Возвращает false, если панель изменилась,
+     * null если блок не найден, иначе элемент блока.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final String SCRIPT_FETCH_BLOCK =
+            "var panel = document.querySelector(\"[data-grabber='SearchFilters']\");" +
+            "if (!panel || panel.getAttribute('" + GENERATION_ATTRIBUTE + "') !== arguments[0]) return false;" +
+            "var blocks = panel.querySelectorAll('[data-filter-id]');" +
+            "for (var i = 0; i < blocks.length; i++) {" +
+            "  if (blocks[i].getAttribute('data-filter-id') === arguments[1]) return blocks[i];" +
+            "}" +
+            "return null;";
+
+    /**
+     * Поколение индекса, совпадает со значением атрибута {@link #GENERATION_ATTRIBUTE} на панели
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final String generation;
+
+    /**
+     * Блоки панели фильтров в порядке отображения
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final List<FilterBlock> blocks;
+
+    /**
+     * Конструктор класса {@link FilterPanelIndex}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param generation поколение индекса
+     * @param blocks     блоки панели фильтров
+     */
+    private FilterPanelIndex(String generation, List<FilterBlock> blocks) {
+        this.generation = generation;
+        this.blocks = blocks;
+    }
+
+    /**
+     * Построение индекса панели фильтров текущей страницы.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param executor драйвер, выполняющий JavaScript
+     * @return индекс или null, если панели фильтров на странице нет или она пуста
+     */
+    public static FilterPanelIndex build(JavascriptExecutor executor) {
+        Object result = executor.executeScript(SCRIPT_BUILD);
+        if (!(result instanceof List)) return null;
+        List<?> fields = (List<?>) result;
+        List<FilterBlock> blocks = new ArrayList<>();
+        for (Object block : (List<?>) fields.get(1)) {
+            List<?> blockFields = (List<?>) block;
+            Map<String, String> values = new HashMap<>();
+            for (Object value : (List<?>) blockFields.get(3)) {
+                List<?> pair = (List<?>) value;
+                values.put(String.valueOf(pair.get(1)).toLowerCase(), String.valueOf(pair.get(0)));
+            }
+            FilterType type = Boolean.TRUE.equals(blockFields.get(2)) ? FilterType.RANGE : FilterType.CHECKBOX;
+            blocks.add(new FilterBlock(String.valueOf(blockFields.get(0)), String.valueOf(blockFields.get(1)), type, values));
+        }
+        if (blocks.isEmpty()) return null;
+        return new FilterPanelIndex(String.valueOf(fields.get(0)), Collections.unmodifiableList(blocks));
+    }
+
+    /**
+     * Получение блоков панели фильтров.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return {@link List} блоков фильтров в порядке отображения
+     */
+    public List<FilterBlock> getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * Поиск блока фильтра по имени и типу.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param filterName имя фильтра, ищется в заголовке блока без учёта регистра
+     * @param type       тип фильтра или null для блока любого типа
+     * @return {@link Optional} с первым подходящим блоком или пустой
+     */
+    public Optional<FilterBlock> find(String filterName, FilterType type) {
+        for (FilterBlock block : blocks) {
+            if ((type == null || block.getType() == type) && block.isNamed(filterName)) return Optional.of(block);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Получение элемента блока фильтра одним вызовом JavaScript.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param executor драйвер, выполняющий JavaScript
+     * @param block    блок фильтра из этого индекса
+     * @return результат получения: элемент блока, отсутствие блока или признак изменившейся панели
+     */
+    public Fetch fetch(JavascriptExecutor executor, FilterBlock block) {
+        Object result = executor.executeScript(SCRIPT_FETCH_BLOCK, generation, block.getId());
+        if (Boolean.FALSE.equals(result)) return new Fetch(true, Optional.empty());
+        return new Fetch(false, result instanceof WebElement ? Optional.of((WebElement) result) : Optional.empty());
+    }
+
+    /**
+     * Получение строкового представления индекса.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return строковое представление индекса.
+     */
+    @Override
+    public String toString() {
+        return "FilterPanelIndex{" +
+                "generation='" + generation + '\'' +
+                ", blocks=" + blocks.size() +
+                '}';
+    }
+
+    /**
+     * Результат получения элемента блока фильтра по индексу.
+     *
+     * @author Вилков Андрей
+     */
+    public static final class Fetch {
+        /**
+         * Признак того, что панель изменилась с момента построения индекса
+         * <p>
+         * Автор: Вилков Андрей
+         * </p>
+         */
+        private final boolean stale;
+
+        /**
+         * Элемент блока фильтра
+         * <p>
+         * Автор: Вилков Андрей
+         * </p>
+         */
+        private final Optional<WebElement> element;
+
+        /**
+         * Конструктор класса {@link Fetch}.
+         * <p>
+         * Автор: Вилков Андрей
+         * </p>
+         *
+         * @param stale   признак изменившейся панели
+         * @param element элемент блока, пустой если блока нет или панель изменилась
+         */
+        private Fetch(boolean stale, Optional<WebElement> element) {
+            this.stale = stale;
+            this.element = element;
+        }
+
+        /**
+         * Проверка, что панель изменилась и индекс нужно построить заново.
+         * <p>
+         * Автор: Вилков Андрей
+         * </p>
+         *
+         * @return true если индекс устарел
+         */
+        public boolean isStale() {
+            return stale;
+        }
+
+        /**
+         * Получение элемента блока фильтра.
+         * <p>
+         * Автор: Вилков Андрей
+         * </p>
+         *
+         * @return {@link Optional} с элементом блока, пустой если блока нет или индекс устарел
+         */
+        public Optional<WebElement> getElement() {
+            return element;
+        }
+    }
+}
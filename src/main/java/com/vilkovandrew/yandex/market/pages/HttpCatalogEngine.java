@@ -0,0 +1,442 @@
+package com.vilkovandrew.yandex.market.pages;
+
+import com.vilkovandrew.helpers.Properties;
+import com.vilkovandrew.helpers.WaitPolicy;
+import com.vilkovandrew.yandex.market.helpers.PageSnapshot;
+import com.vilkovandrew.yandex.market.helpers.PriceParser;
+import com.vilkovandrew.yandex.market.helpers.Product;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import static java.lang.String.format;
+
+/**
+ * Чтение страниц результатов каталога HTTP клиентом без отрисовки в браузере.
+ * <p>
+ * Страницы загружаются {@link HttpURLConnection} с cookies и User-Agent сессии браузера и разбираются
+ * {@link PageSnapshot}. Загрузка нескольких страниц идёт пулом из
+ * {@link com.vilkovandrew.helpers.AppProperties#getHttpThreads()} потоков, соединения переиспользуются
+ * кэшем keep-alive JDK (по умолчанию до 5 соединений на сервер, свойство http.maxConnections).
+ * </p>
+ * <p>
+ * Браузер остаётся источником текущей страницы для действий в интерфейсе: экземпляр движка привязан к сессии
+ * браузера, и если адрес в браузере изменился (установлены фильтры, выполнен поиск), движок переходит на него.
+ * Переходы {@link #goToPage(int)} меняют только страницу движка. Движок без браузера создаётся конструктором
+ * с адресом страницы, например для чтения страниц {@link com.vilkovandrew.helpers.FixtureServer}.
+ * </p>
+ * <p>
+ * Страница, перенаправленная на другой сервер или путь (например, на проверку "я не робот"), считается
+ * ошибкой загрузки, а не пустой страницей результатов.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class HttpCatalogEngine implements CatalogEngine {
+    /**
+     * Движки по сессиям браузера.
+     * <p>
+     * Движок не хранит ссылку на сессию, поэтому запись удаляется вместе с закрытой сессией.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final Map<WebDriver, HttpCatalogEngine> ENGINES = new WeakHashMap<>();
+
+    /**
+     * Пул потоков загрузки страниц.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final ExecutorService EXECUTOR =
+            Executors.newFixedThreadPool(Math.max(1, Properties.appProperties.getHttpThreads()), r -> {
+                Thread thread = new Thread(r, "http-catalog-engine");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * Паттерн кодировки в заголовке Content-Type
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final Pattern CHARSET_PATTERN = Pattern.compile("(?i)charset=\"?([\\w-]+)");
+
+    /**
+     * Адрес страницы браузера при последней синхронизации
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private String browserUrl;
+
+    /**
+     * Адрес текущей страницы движка
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private String url;
+
+    /**
+     * Разобранная текущая страница или null, если она ещё не загружена
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private PageSnapshot current;
+
+    /**
+     * Значение заголовка Cookie из сессии браузера
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private volatile String cookieHeader;
+
+    /**
+     * Значение заголовка User-Agent браузера
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private volatile String userAgent;
+
+    /**
+     * Количество загруженных страниц
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final AtomicInteger pages = new AtomicInteger();
+
+    /**
+     * Количество полученных байт
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final AtomicLong bytes = new AtomicLong();
+
+    /**
+     * Суммарное время загрузки и разбора страниц в наносекундах
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final AtomicLong fetchNanos = new AtomicLong();
+
+    /**
+     * Конструктор класса {@link HttpCatalogEngine} для чтения страниц без сессии браузера.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param url адрес страницы результатов
+     */
+    public HttpCatalogEngine(String url) {
+        this.url = url;
+    }
+
+    /**
+     * Получение движка для сессии браузера с переходом на страницу браузера, если она изменилась.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param driver экземпляр класса {@link WebDriver}
+     * @return движок сессии
+     */
+    public static HttpCatalogEngine of(WebDriver driver) {
+        HttpCatalogEngine engine;
+        synchronized (ENGINES) {
+            engine = ENGINES.computeIfAbsent(driver, d -> new HttpCatalogEngine(d.getCurrentUrl()));
+        }
+        engine.sync(driver);
+        return engine;
+    }
+
+    /**
+     * Переход на страницу браузера, если она изменилась с последней синхронизации.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param driver сессия браузера, из которой берутся адрес, cookies и User-Agent
+     */
+    private void sync(WebDriver driver) {
+        String currentBrowserUrl = driver.getCurrentUrl();
+        if (currentBrowserUrl.equals(browserUrl)) return;
+        browserUrl = currentBrowserUrl;
+        url = currentBrowserUrl;
+        current = null;
+        StringBuilder cookies = new StringBuilder();
+        for (Cookie cookie : driver.manage().getCookies()) {
+            if (cookies.length() > 0) cookies.append("; ");
+            cookies.append(cookie.getName()).append('=').append(cookie.getValue());
+        }
+        cookieHeader = cookies.toString();
+        userAgent = String.valueOf(((JavascriptExecutor) driver).executeScript("return navigator.userAgent;"));
+    }
+
+    /**
+     * Получение товаров текущей страницы движка.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return {@link List} содержащий товары
+     */
+    @Override
+    public List<Product> getProductOnPage() {
+        return getSnapshot().getProducts();
+    }
+
+    /**
+     * Переход на страницу результатов по номеру без участия браузера.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param pageNumber номер страницы
+     */
+    @Override
+    public void goToPage(int pageNumber) {
+        url = CatalogListPage.getPageUrl(url, pageNumber);
+        current = null;
+    }
+
+    /**
+     * Получение количества страниц результатов по пагинации текущей страницы.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return наибольший номер страницы в блоке пагинации, 0 если пагинации нет
+     */
+    @Override
+    public int getPageCount() {
+        return getSnapshot().getPageCount();
+    }
+
+    /**
+     * Получение адреса текущей страницы движка.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return адрес страницы
+     */
+    @Override
+    public String getCurrentUrl() {
+        return url;
+    }
+
+    /**
+     * Получение разобранной текущей страницы с загрузкой при первом обращении.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return снимок страницы
+     */
+    public PageSnapshot getSnapshot() {
+        if (current == null) current = fetch(url);
+        return current;
+    }
+
+    /**
+     * Параллельная загрузка страниц результатов с первой по заданную.
+     * <p>
+     * Если текущая страница - первая и уже загружена, например для {@link #getPageCount()},
+     * её снимок используется повторно, а загружаются только остальные страницы.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param pageCount количество страниц
+     * @return {@link List} результатов загрузки в порядке номеров страниц
+     */
+    public List<CompletableFuture<PageSnapshot>> fetchPages(int pageCount) {
+        String baseUrl = url;
+        List<CompletableFuture<PageSnapshot>> result = new ArrayList<>(pageCount);
+        for (int pageNumber = 1; pageNumber <= pageCount; pageNumber++) {
+            if (pageNumber == 1 && current != null && isFirstPage()) {
+                result.add(CompletableFuture.completedFuture(current));
+                continue;
+            }
+            String pageUrl = CatalogListPage.getPageUrl(baseUrl, pageNumber);
+            result.add(CompletableFuture.supplyAsync(() -> fetch(pageUrl), EXECUTOR));
+        }
+        return result;
+    }
+
+    /**
+     * Проверка, что текущий адрес движка - первая страница результатов.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return true если номер страницы в адресе не указан или равен 1
+     */
+    private boolean isFirstPage() {
+        String firstPageUrl = CatalogListPage.getPageUrl(url, 1);
+        return firstPageUrl.startsWith(url);
+    }
+
+    /**
+     * Получение статистики загрузки страниц в текстовом виде.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return количество страниц, объём и время загрузки
+     */
+    public String getStatistics() {
+        int count = pages.get();
+        long millis = TimeUnit.NANOSECONDS.toMillis(fetchNanos.get());
+        return format("Загружено страниц: %d, потоков: %d%n" +
+                        "Получено: %d КБ%n" +
+                        "Загрузка и разбор: %d мс, в среднем на страницу: %d мс",
+                count, Math.max(1, Properties.appProperties.getHttpThreads()), bytes.get() / 1024,
+                millis, count == 0 ? 0 : millis / count);
+    }
+
+    /**
+     * Загрузка и разбор страницы.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param pageUrl адрес страницы
+     * @return снимок страницы
+     */
+    private PageSnapshot fetch(String pageUrl) {
+        long start = System.nanoTime();
+        int timeout = (int) WaitPolicy.READINESS.getTimeout().toMillis();
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(pageUrl).openConnection();
+            connection.setConnectTimeout(timeout);
+            connection.setReadTimeout(timeout);
+            connection.setRequestProperty("Accept", "text/html,application/xhtml+xml");
+            connection.setRequestProperty("Accept-Language", "ru-RU,ru;q=0.9");
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+            if (userAgent != null) connection.setRequestProperty("User-Agent", userAgent);
+            if (cookieHeader != null && !cookieHeader.isEmpty()) connection.setRequestProperty("Cookie", cookieHeader);
+            int status = connection.getResponseCode();
+            if (status != HttpURLConnection.HTTP_OK) {
+                readBody(connection.getErrorStream(), connection.getContentEncoding());
+                throw new IllegalStateException(format("Страница '%s' вернула код %d", pageUrl, status));
+            }
+            byte[] body = readBody(connection.getInputStream(), connection.getContentEncoding());
+            bytes.addAndGet(body.length);
+            if (!isSamePage(new URL(pageUrl), connection.getURL()))
+                throw new IllegalStateException(format("Страница '%s' перенаправлена на '%s'", pageUrl, connection.getURL()));
+            String html = new String(body, getCharset(connection.getContentType()));
+            return PageSnapshot.parse(html, connection.getURL().toString(), new PriceParser());
+        } catch (IOException e) {
+            if (connection != null) connection.disconnect();
+            throw new UncheckedIOException(format("Не удалось загрузить страницу '%s'", pageUrl), e);
+        } finally {
+            pages.incrementAndGet();
+            fetchNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Проверка, что ответ получен с того же сервера и пути, что и запрошен.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param requested запрошенный адрес
+     * @param actual    адрес ответа после перенаправлений
+     * @return true если совпадают протокол, сервер, порт и путь
+     */
+    private static boolean isSamePage(URL requested, URL actual) {
+        return requested.getProtocol().equalsIgnoreCase(actual.getProtocol())
+                && requested.getHost().equalsIgnoreCase(actual.getHost())
+                && getPort(requested) == getPort(actual)
+                && requested.getPath().equals(actual.getPath());
+    }
+
+    /**
+     * Получение порта адреса с учётом порта протокола по умолчанию.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param url адрес
+     * @return порт
+     */
+    private static int getPort(URL url) {
+        return url.getPort() < 0 ? url.getDefaultPort() : url.getPort();
+    }
+
+    /**
+     * Чтение тела ответа целиком, после чего соединение возвращается в кэш keep-alive.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param stream          поток тела ответа, может быть null
+     * @param contentEncoding значение заголовка Content-Encoding
+     * @return тело ответа
+     * @throws IOException если не удалось прочитать ответ
+     */
+    private static byte[] readBody(InputStream stream, String contentEncoding) throws IOException {
+        if (stream == null) return new byte[0];
+        try (InputStream in = "gzip".equalsIgnoreCase(contentEncoding) ? new GZIPInputStream(stream) : stream) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[16 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Получение кодировки ответа из заголовка Content-Type.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param contentType значение заголовка Content-Type
+     * @return кодировка ответа, UTF-8 если она не указана или не поддерживается
+     */
+    private static Charset getCharset(String contentType) {
+        if (contentType == null) return StandardCharsets.UTF_8;
+        Matcher matcher = CHARSET_PATTERN.matcher(contentType);
+        if (!matcher.find() || !Charset.isSupported(matcher.group(1))) return StandardCharsets.UTF_8;
+        return Charset.forName(matcher.group(1));
+    }
+}
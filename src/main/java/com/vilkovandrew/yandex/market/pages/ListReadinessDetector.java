@@ -0,0 +1,128 @@
+package com.vilkovandrew.yandex.market.pages;
+
+import com.vilkovandrew.helpers.Properties;
+import com.vilkovandrew.helpers.WaitPolicy;
+import com.vilkovandrew.helpers.Waits;
+import org.openqa.selenium.By;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+
+import java.time.Duration;
+
+import static java.lang.String.format;
+
+/**
+ * Класс для определения готовности списка товаров после перезагрузки.
+ * <p>
+ * Устанавливает MutationObserver на блок результатов поиска и одним асинхронным скриптом ждёт,
+ * пока в нём не будет изменений в течение периода тишины и не исчезнет прелоадер.
+ * Прелоадер, появившийся после начала ожидания, тоже учитывается.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class ListReadinessDetector {
+    /**
+     * Локатор блока результатов поиска, за изменениями которого следит скрипт ожидания.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final By LOCATOR_RESULTS = By.cssSelector("#searchResults, [data-test-id='virtuoso-item-list']");
+
+    /**
+     * Асинхронный скрипт ожидания стабилизации списка.
+     * <p>
+     * Аргументы: период тишины и таймаут в миллисекундах. Результат: время от начала ожидания
+     * до последнего изменения списка в миллисекундах, -1 если список не найден, -2 при таймауте.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final String SCRIPT_AWAIT_SETTLED =
+            "var done = arguments[arguments.length - 1], quiet = arguments[0], timeout = arguments[1];" +
+            "var target = document.getElementById('searchResults')" +
+            "  || document.querySelector(\"[data-test-id='virtuoso-item-list']\");" +
+            "if (!target) { done(-1); return; }" +
+            "var root = target.parentNode || target;" +
+            "var isLoading = function () {" +
+            "  for (var i = 0; i < root.children.length; i++) {" +
+            "    if (root.children[i].getAttribute('data-auto') === 'preloader') return true;" +
+            "  }" +
+            "  return false;" +
+            "};" +
+            "var start = performance.now(), lastChange = start, timer, guard, observer;" +
+            "var finish = function (result) { observer.disconnect(); clearTimeout(timer); clearTimeout(guard); done(result); };" +
+            "var arm = function () {" +
+            "  clearTimeout(timer);" +
+            "  timer = setTimeout(function () { if (isLoading()) arm(); else finish(Math.round(lastChange - start)); }, quiet);" +
+            "};" +
+            "observer = new MutationObserver(function () { lastChange = performance.now(); arm(); });" +
+            "observer.observe(root, {childList: true, subtree: true, attributes: true, characterData: true});" +
+            "guard = setTimeout(function () { finish(-2); }, timeout);" +
+            "arm();";
+
+    /**
+     * Ожидания и асинхронные скрипты в сессии браузера
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final Waits waits;
+
+    /**
+     * Конструктор класса {@link ListReadinessDetector}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param driver экземпляр класса {@link WebDriver}
+     */
+    public ListReadinessDetector(WebDriver driver) {
+        this.waits = new Waits(driver);
+    }
+
+    /**
+     * Ожидание стабилизации списка товаров.
+     * <p>
+     * Период тишины берётся из {@link com.vilkovandrew.helpers.AppProperties#getReadinessQuietPeriod()},
+     * таймаут - из политики {@link WaitPolicy#READINESS}. Если блока результатов ещё нет на странице,
+     * он ожидается по той же политике, и ожидание стабилизации повторяется.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return время от начала ожидания до последнего изменения списка в миллисекундах
+     * @throws TimeoutException если блок результатов не появился или список не стабилизировался
+     */
+    public long awaitSettled() {
+        long settle = runAwaitSettled();
+        if (settle == -1) {
+            waits.until(WaitPolicy.READINESS, ExpectedConditions.presenceOfElementLocated(LOCATOR_RESULTS));
+            settle = runAwaitSettled();
+        }
+        if (settle < 0)
+            throw new TimeoutException(format("Список товаров не стабилизировался за %d мс",
+                    WaitPolicy.READINESS.getTimeout().toMillis()));
+        return settle;
+    }
+
+    /**
+     * Однократное выполнение скрипта ожидания стабилизации списка.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return время до последнего изменения списка в миллисекундах, -1 если список не найден, -2 при таймауте
+     */
+    private long runAwaitSettled() {
+        long quiet = Properties.appProperties.getReadinessQuietPeriod();
+        long timeout = WaitPolicy.READINESS.getTimeout().toMillis();
+        Object result = waits.executeAsyncScript(Duration.ofMillis(timeout + quiet + 1000), SCRIPT_AWAIT_SETTLED,
+                quiet, timeout);
+        return result instanceof Number ? ((Number) result).longValue() : -2;
+    }
+}
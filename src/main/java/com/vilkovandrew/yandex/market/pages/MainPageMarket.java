@@ -1,15 +1,21 @@
 package com.vilkovandrew.yandex.market.pages;
 
 import com.vilkovandrew.helpers.Assertions;
+import com.vilkovandrew.helpers.WaitPolicy;
+import com.vilkovandrew.helpers.Waits;
+import com.vilkovandrew.yandex.market.helpers.CatalogNavigationMap;
 import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.interactions.Actions;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 
-import java.time.Duration;
+import java.net.URI;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.openqa.selenium.support.ui.ExpectedConditions.visibilityOfAllElementsLocatedBy;
@@ -29,12 +35,12 @@ public class MainPageMarket {
     private final WebDriver driver;
 
     /**
-     * Переменная для хранения экземпляра класса {@link WebDriverWait}.
+     * Переменная для хранения экземпляра класса {@link Waits}.
      * <p>
      * Автор: Вилков Андрей
      * </p>
      */
-    private final WebDriverWait wait;
+    private final Waits waits;
 
     /**
      * Локатор кнопки 'Каталог'.
@@ -60,6 +66,30 @@ public class MainPageMarket {
      */
     private static final By LOCATOR_ITEMS = By.xpath("//div[@role='tabpanel']/div//ul[@data-autotest-id='subItems']/li");
 
+    /**
+     * Скрипт чтения дерева всплывающего окна каталога.
+     * <p>
+     * Окно отрисовывает разделы только выбранной категории, поэтому скрипт возвращает её имя
+     * и [[имя раздела, адрес]] её разделов, или null, если окно каталога не открыто.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final String SCRIPT_NAVIGATION_TREE =
+            "var panel = document.querySelector(\"div[role='tabpanel']\");" +
+            "if (!panel) return null;" +
+            "var labelledBy = panel.getAttribute('aria-labelledby');" +
+            "var tab = (labelledBy && document.getElementById(labelledBy))" +
+            "  || document.querySelector(\"li[role='tab'][aria-selected='true']\");" +
+            "if (!tab) return null;" +
+            "var items = [];" +
+            "panel.querySelectorAll(\"ul[data-autotest-id='subItems'] > li\").forEach(function (li) {" +
+            "  var a = li.querySelector('a[href]');" +
+            "  if (a && li.innerText.trim()) items.push([li.innerText.trim(), a.href]);" +
+            "});" +
+            "return [tab.innerText.trim(), items];";
+
     /**
      * Конструктор класса {@link MainPageMarket}.
      * <p>
@@ -70,7 +100,7 @@ public class MainPageMarket {
      */
     public MainPageMarket(WebDriver driver) {
         this.driver = driver;
-        wait = new WebDriverWait(driver, Duration.ofSeconds(60));
+        waits = new Waits(driver);
     }
 
     /**
@@ -80,7 +110,7 @@ public class MainPageMarket {
      * </p>     *
      */
     public void openCatalog() {
-        WebElement catalogButton = driver.findElement(LOCATOR_CATALOG_BUTTON);
+        WebElement catalogButton = waits.present(LOCATOR_CATALOG_BUTTON);
         boolean isExpanded = Boolean.getBoolean(catalogButton.getDomAttribute("aria-expanded"));
         if (!isExpanded) {
             catalogButton.click();
@@ -96,7 +126,7 @@ public class MainPageMarket {
      * @param sectionName имя категории в каталоге
      */
     public void moveCursorToSection(String sectionName) {
-        List<WebElement> categories = wait.until(visibilityOfAllElementsLocatedBy(LOCATOR_TAB_LIST_CATEGORY));
+        List<WebElement> categories = waits.until(WaitPolicy.PRESENCE, visibilityOfAllElementsLocatedBy(LOCATOR_TAB_LIST_CATEGORY));
         Optional<WebElement> itemCategory = categories.stream()
                 .filter(e -> e.getText().equalsIgnoreCase(sectionName))
                 .findAny();
@@ -119,7 +149,7 @@ public class MainPageMarket {
      * @param itemName имя раздела в категории каталога
      */
     public void openSectionItem(String itemName) {
-        List<WebElement> itemList = driver.findElements(LOCATOR_ITEMS);
+        List<WebElement> itemList = waits.until(WaitPolicy.PRESENCE, visibilityOfAllElementsLocatedBy(LOCATOR_ITEMS));
         Optional<WebElement> item = itemList.stream()
                 .filter(e -> itemName.equalsIgnoreCase(e.getText()))
                 .findAny();
@@ -127,12 +157,71 @@ public class MainPageMarket {
         Assertions.assertTrue(item.isPresent(),
                 String.format("Раздел \"%s\" не найден в текущей категории", itemName));
 
+        refreshNavigationMap();
         WebElement itemElement = item.get();
         new Actions(driver)
                 .moveByOffset(itemElement.getLocation().getX(), itemElement.getLocation().getY())
                 .moveToElement(itemElement)
                 .click()
                 .perform();
-        wait.until(ExpectedConditions.titleContains(itemName));
+        waits.until(WaitPolicy.READINESS, ExpectedConditions.titleContains(itemName));
+    }
+
+    /**
+     * Открытие раздела переходом по адресу из {@link CatalogNavigationMap}
+     * <p>
+     * Если страница по адресу из карты не получила ожидаемый заголовок, запись удаляется из карты.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param sectionName имя категории в каталоге
+     * @param itemName    имя раздела в категории каталога
+     * @return true если раздел открыт, false если адреса нет в карте или он устарел
+     */
+    public boolean openSectionItemFromMap(String sectionName, String itemName) {
+        String origin = getOrigin();
+        Optional<String> href = CatalogNavigationMap.get(origin, sectionName, itemName);
+        if (!href.isPresent()) return false;
+        driver.get(href.get());
+        try {
+            waits.until(WaitPolicy.READINESS, ExpectedConditions.titleContains(itemName));
+            return true;
+        } catch (TimeoutException e) {
+            CatalogNavigationMap.remove(origin, sectionName, itemName);
+            return false;
+        }
+    }
+
+    /**
+     * Обновление {@link CatalogNavigationMap} разделами выбранной категории одним вызовом JavaScript
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private void refreshNavigationMap() {
+        Object tree = ((JavascriptExecutor) driver).executeScript(SCRIPT_NAVIGATION_TREE);
+        if (!(tree instanceof List)) return;
+        List<?> fields = (List<?>) tree;
+        Map<String, String> items = new LinkedHashMap<>();
+        for (Object item : (List<?>) fields.get(1)) {
+            List<?> pair = (List<?>) item;
+            items.put(String.valueOf(pair.get(0)), String.valueOf(pair.get(1)));
+        }
+        CatalogNavigationMap.update(getOrigin(), String.valueOf(fields.get(0)), items);
+    }
+
+    /**
+     * Получение адреса открытого сайта без пути
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return схема и хост текущей страницы
+     */
+    private String getOrigin() {
+        URI uri = URI.create(driver.getCurrentUrl());
+        return uri.getScheme() + "://" + uri.getRawAuthority();
     }
 }
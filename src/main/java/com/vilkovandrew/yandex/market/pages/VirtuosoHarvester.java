@@ -0,0 +1,299 @@
+package com.vilkovandrew.yandex.market.pages;
+
+import com.vilkovandrew.helpers.Properties;
+import com.vilkovandrew.helpers.WaitPolicy;
+import com.vilkovandrew.helpers.Waits;
+import com.vilkovandrew.yandex.market.helpers.PriceParser;
+import com.vilkovandrew.yandex.market.helpers.Product;
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Класс для пошагового сбора товаров из виртуализированного списка Virtuoso.
+ * <p>
+ * Virtuoso держит в DOM только видимую часть списка, поэтому товары собираются по мере прокрутки:
+ * каждый шаг - один асинхронный скрипт, который читает отрисованные элементы, прокручивает список
+ * на высоту окна прокрутки и ждёт, пока Virtuoso отрисует следующие элементы. Элементы различаются
+ * по индексу Virtuoso (data-index), уже собранные пропускаются. Первый шаг прокручивает список в начало,
+ * поэтому повторный сбор на той же странице не пропускает товары, которые Virtuoso убрал из DOM.
+ * Товары отдаются ленивым потоком, поэтому обработка первых товаров начинается до окончания прокрутки страницы.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class VirtuosoHarvester {
+    /**
+     * Асинхронный скрипт одного шага сбора.
+     * <p>
+     * Аргументы: признак прокрутки вниз перед чтением (без него список прокручивается в начало), период тишины
+     * и таймаут в миллисекундах.
+     * Результат: null если список не найден, иначе [[[ключ, заголовок, ссылка, текст цены]], конец списка].
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final String SCRIPT_HARVEST_STEP =
+            "var done = arguments[arguments.length - 1], scroll = arguments[0], quiet = arguments[1], timeout = arguments[2];" +
+            "var list = document.querySelector(\"[data-test-id='virtuoso-item-list']\");" +
+            "if (!list) { done(null); return; }" +
+            "var scroller = document.querySelector('div[data-virtuoso-scroller]');" +
+            "var read = function (end) {" +
+            "  var items = [];" +
+            "  for (var i = 0; i < list.children.length; i++) {" +
+            "    var item = list.children[i];" +
+            "    var a = item.querySelector(\"article h3[data-zone-name='title'] > a[href]\");" +
+            "    if (!a) continue;" +
+            "    var price = '';" +
+            "    var zone = a.closest('article').querySelector(\"[data-zone-name='price']\");" +
+            "    if (zone) {" +
+            "      var spans = zone.querySelectorAll('span');" +
+            "      for (var j = 0; j < spans.length; j++) {" +
+            "        if (spans[j].attributes.length === 0) { price = spans[j].innerText; break; }" +
+            "      }" +
+            "      price += '\\n' + zone.innerText;" +
+            "    }" +
+            "    var key = item.getAttribute('data-index') || a.href;" +
+            "    items.push([key, a.innerText.trim(), a.href, price]);" +
+            "  }" +
+            "  done([items, end]);" +
+            "};" +
+            "if (!scroller) { read(true); return; }" +
+            "var before = scroller.scrollTop;" +
+            "scroller.scrollTop = scroll ? before + scroller.clientHeight : 0;" +
+            "if (scroller.scrollTop === before) { read(scroll); return; }" +
+            "var timer, guard, observer;" +
+            "var finish = function () { observer.disconnect(); clearTimeout(timer); clearTimeout(guard); read(false); };" +
+            "var arm = function () { clearTimeout(timer); timer = setTimeout(finish, quiet); };" +
+            "observer = new MutationObserver(arm);" +
+            "observer.observe(list, {childList: true, subtree: true});" +
+            "guard = setTimeout(finish, timeout);" +
+            "arm();";
+
+    /**
+     * Ожидания и асинхронные скрипты в сессии браузера
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final Waits waits;
+
+    /**
+     * Максимальное количество товаров, после которого сбор останавливается
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final int maxItems;
+
+    /**
+     * Разбор цен товаров
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private final PriceParser priceParser;
+
+    /**
+     * Количество выполненных шагов сбора
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private int steps;
+
+    /**
+     * Признак того, что на странице остались товары сверх максимального количества
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private boolean truncated;
+
+    /**
+     * Конструктор класса {@link VirtuosoHarvester}.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param driver      экземпляр класса {@link WebDriver}
+     * @param maxItems    максимальное количество товаров на странице
+     * @param priceParser разбор цен товаров, ведущий счётчик неразобранных цен
+     */
+    public VirtuosoHarvester(WebDriver driver, int maxItems, PriceParser priceParser) {
+        this.waits = new Waits(driver);
+        this.maxItems = maxItems;
+        this.priceParser = priceParser;
+    }
+
+    /**
+     * Получение ленивого потока товаров списка.
+     * <p>
+     * Прокрутка выполняется только по мере потребления потока и прекращается, когда достигнут конец списка,
+     * собрано максимальное количество товаров или поток больше не потребляется.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return {@link Stream} товаров в порядке списка
+     */
+    public Stream<Product> stream() {
+        return chunks().flatMap(List::stream);
+    }
+
+    /**
+     * Получение ленивого потока порций товаров списка: каждая порция - новые товары одного шага сбора.
+     * <p>
+     * Порции позволяют проверять товары по мере прокрутки, не дожидаясь сбора всей страницы.
+     * </p>
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return {@link Stream} непустых порций товаров в порядке списка
+     */
+    public Stream<List<Product>> chunks() {
+        return StreamSupport.stream(new HarvestSpliterator(), false);
+    }
+
+    /**
+     * Получение количества выполненных шагов сбора.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return количество вызовов скрипта сбора
+     */
+    public int getSteps() {
+        return steps;
+    }
+
+    /**
+     * Получение признака того, что сбор остановлен по максимальному количеству товаров, хотя на странице
+     * были ещё не собранные товары.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return true если часть товаров страницы не попала в поток
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Выполнение одного шага сбора.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param scroll признак прокрутки списка вниз перед чтением, без него список прокручивается в начало
+     * @return результат скрипта {@link #SCRIPT_HARVEST_STEP}
+     */
+    private Object step(boolean scroll) {
+        long quiet = Properties.appProperties.getHarvestStepQuietPeriod();
+        long timeout = WaitPolicy.READINESS.getTimeout().toMillis();
+        steps++;
+        return waits.executeAsyncScript(Duration.ofMillis(timeout + quiet + 1000), SCRIPT_HARVEST_STEP, scroll, quiet, timeout);
+    }
+
+    /**
+     * Источник потока товаров, выполняющий шаги сбора по требованию.
+     *
+     * @author Вилков Андрей
+     */
+    private class HarvestSpliterator extends Spliterators.AbstractSpliterator<List<Product>> {
+        /**
+         * Ключи уже собранных элементов списка
+         * <p>
+         * Автор: Вилков Андрей
+         * </p>
+         */
+        private final Set<String> seen = new HashSet<>();
+
+        /**
+         * Признак достижения конца списка или максимального количества товаров
+         * <p>
+         * Автор: Вилков Андрей
+         * </p>
+         */
+        private boolean end;
+
+        /**
+         * Конструктор класса {@link HarvestSpliterator}.
+         * <p>
+         * Автор: Вилков Андрей
+         * </p>
+         */
+        HarvestSpliterator() {
+            super(maxItems, Spliterator.ORDERED | Spliterator.NONNULL);
+        }
+
+        /**
+         * Отдача новых товаров следующего шага сбора, при необходимости с прокруткой списка.
+         * <p>
+         * Автор: Вилков Андрей
+         * </p>
+         *
+         * @param action действие над порцией товаров
+         * @return false если товаров больше нет
+         */
+        @Override
+        public boolean tryAdvance(Consumer<? super List<Product>> action) {
+            while (!end) {
+                List<Product> chunk = harvest();
+                if (chunk.isEmpty()) continue;
+                action.accept(chunk);
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Выполнение шага сбора: первый шаг прокручивает список в начало, следующие - вниз.
+         * <p>
+         * Если при достижении максимального количества товаров в шаге остались не собранные товары,
+         * выставляется {@link #isTruncated()}.
+         * </p>
+         * <p>
+         * Автор: Вилков Андрей
+         * </p>
+         *
+         * @return новые товары шага
+         */
+        private List<Product> harvest() {
+            Object result = step(steps > 0);
+            List<Product> chunk = new ArrayList<>();
+            if (!(result instanceof List)) {
+                end = true;
+                return chunk;
+            }
+            List<?> fields = (List<?>) result;
+            for (Object row : (List<?>) fields.get(0)) {
+                List<?> values = (List<?>) row;
+                String key = String.valueOf(values.get(0));
+                if (seen.contains(key)) continue;
+                if (seen.size() >= maxItems) {
+                    truncated = true;
+                    break;
+                }
+                seen.add(key);
+                chunk.add(priceParser.toProduct(String.valueOf(values.get(1)), String.valueOf(values.get(2)),
+                        String.valueOf(values.get(3))));
+            }
+            end = Boolean.TRUE.equals(fields.get(1)) || seen.size() >= maxItems || seen.isEmpty();
+            return chunk;
+        }
+    }
+}
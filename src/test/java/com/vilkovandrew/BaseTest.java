@@ -1,14 +1,31 @@
 package com.vilkovandrew;
 
+import com.vilkovandrew.helpers.CommandStatistics;
+import com.vilkovandrew.helpers.CommandTimingListener;
+import com.vilkovandrew.helpers.DriverContext;
+import com.vilkovandrew.helpers.FixtureMode;
+import com.vilkovandrew.helpers.FixtureRecorder;
+import com.vilkovandrew.helpers.FixtureServer;
+import com.vilkovandrew.helpers.PageTraffic;
 import com.vilkovandrew.helpers.Properties;
+import com.vilkovandrew.helpers.Screenshoter;
+import com.vilkovandrew.helpers.StepLatencies;
+import com.vilkovandrew.helpers.WebDriverPool;
+import com.vilkovandrew.steps.EngineThroughput;
+import io.qameta.allure.Allure;
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.TestInfo;
 import org.openqa.selenium.PageLoadStrategy;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.chromium.HasCdp;
+import org.openqa.selenium.support.events.EventFiringDecorator;
 
 import java.time.Duration;
+import java.util.Collections;
 
 /**
  * Базовый класс для тестов.
@@ -26,14 +43,87 @@ public class BaseTest {
     protected WebDriver driver;
 
     /**
-     * Конфигурирование драйвера перед тестами.
+     * Запуск сервера записанных страниц в режиме {@link FixtureMode#REPLAY} и подмена им адреса Яндекс Маркета.
+     * <p>
+     * Выполняется до получения параметров тестов, поэтому тесты получают адрес локального сервера.
+     * </p>
      *
      * <p>
      * Автор: Вилков Андрей
      * </p>
      */
+    @BeforeAll
+    static void startFixtureServer() {
+        if (Properties.appProperties.getFixtureMode() != FixtureMode.REPLAY) return;
+        FixtureServer server = FixtureServer.start(Properties.appProperties.getFixturesDir(),
+                Properties.appProperties.getFixturesPort());
+        Properties.appProperties.setProperty("yandex.market.url", server.getUrl());
+    }
+
+    /**
+     * Получение драйвера перед тестами.
+     * <p>
+     * Драйвер выдаётся из {@link WebDriverPool} и привязывается к потоку выполнения через {@link DriverContext}.
+     * Имя теста становится сценарием для замеров {@link StepLatencies}, поэтому вызовы параметризованных тестов,
+     * выполняемые параллельно, должны иметь разные имена, например с номером вызова '{index}'.
+     * </p>
+     *
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param testInfo информация о текущем тесте
+     */
     @BeforeEach
-    void beforeTest() {
+    void beforeTest(TestInfo testInfo) {
+        StepLatencies.setScenario(testInfo.getDisplayName());
+        driver = WebDriverPool.init(BaseTest::createDriver).lease();
+        DriverContext.setDriver(driver);
+    }
+
+    /**
+     * Возврат драйвера в пул после тестов, запись задержек шагов и ожидание записи скриншотов, сделанных в фоне.
+     *
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    @AfterEach
+    void afterTest() {
+        DriverContext.clear();
+        WebDriverPool pool = WebDriverPool.getInstance();
+        pool.release(driver);
+        Allure.addAttachment("Пул сессий WebDriver", pool.getStatistics());
+        Allure.addAttachment("Задержки шагов", "text/csv", StepLatencies.toCsv(), ".csv");
+        if (Properties.appProperties.isCommandStatistics())
+            Allure.addAttachment("Команды WebDriver по суммарному времени", "text/csv",
+                    CommandStatistics.toCsv(CommandStatistics.DEFAULT_TOP), ".csv");
+        CommandStatistics.reset();
+        StepLatencies.writeCsv(Properties.appProperties.getStepLatencyFile());
+        EngineThroughput.writeCsv(Properties.appProperties.getEngineThroughputFile());
+        StepLatencies.clearScenario();
+        FixtureRecorder.clearScenario();
+        Screenshoter.flush();
+    }
+
+    /**
+     * Запуск и конфигурирование нового драйвера.
+     * <p>
+     * При включённом {@link com.vilkovandrew.helpers.AppProperties#isLeanBrowser()} браузер запускается
+     * без окна, с фиксированным размером и блокировкой тяжёлых ресурсов.
+     * Неявное ожидание отключено, ожидания выполняются по политикам {@link com.vilkovandrew.helpers.WaitPolicy}.
+     * При включённом {@link com.vilkovandrew.helpers.AppProperties#isCommandStatistics()} драйвер оборачивается
+     * в {@link EventFiringDecorator} с {@link CommandTimingListener}, поэтому дальше с ним работают только
+     * через интерфейсы, а не через {@link ChromeDriver}.
+     * </p>
+     *
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @return экземпляр класса {@link WebDriver}
+     */
+    private static WebDriver createDriver() {
         System.setProperty("webdriver.chrome.driver", Properties.appProperties.getDriverPath());
 
         ChromeOptions options = new ChromeOptions();
@@ -51,21 +141,42 @@ public class BaseTest {
         options.setPageLoadStrategy(PageLoadStrategy.EAGER);
         options.setPageLoadTimeout(Duration.ofSeconds(120));
 
-        driver = new ChromeDriver(options);
-        driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(60));
-        driver.manage().window().maximize();
+        boolean lean = Properties.appProperties.isLeanBrowser();
+        if (lean) {
+            options.addArguments(
+                    "--headless=new",
+                    "--window-size=" + Properties.appProperties.getWindowSize(),
+                    "--mute-audio"
+            );
+            options.setExperimentalOption("prefs",
+                    Collections.singletonMap("profile.managed_default_content_settings.images", 2));
+        }
 
+        ChromeDriver driver = new ChromeDriver(options);
+        driver.manage().timeouts().implicitlyWait(Duration.ZERO);
+        PageTraffic.install(driver);
+        if (lean) {
+            blockResources(driver);
+        } else {
+            driver.manage().window().maximize();
+        }
+        if (Properties.appProperties.isCommandStatistics())
+            return new EventFiringDecorator<>(new CommandTimingListener()).decorate(driver);
+        return driver;
     }
 
     /**
-     * Закрытие драйвера после тестов.
+     * Блокировка загрузки изображений, шрифтов, видео и счётчиков через DevTools.
      *
      * <p>
      * Автор: Вилков Андрей
      * </p>
+     *
+     * @param driver драйвер с доступом к DevTools, например {@link ChromeDriver}
      */
-    @AfterEach
-    void afterTest() {
-        driver.quit();
+    private static void blockResources(HasCdp driver) {
+        driver.executeCdpCommand("Network.enable", Collections.emptyMap());
+        driver.executeCdpCommand("Network.setBlockedURLs",
+                Collections.singletonMap("urls", Properties.appProperties.getBlockedUrls()));
     }
 }
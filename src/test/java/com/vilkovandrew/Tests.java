@@ -4,6 +4,8 @@ import com.vilkovandrew.yandex.market.helpers.Filter;
 import com.vilkovandrew.yandex.market.helpers.Product;
 import io.qameta.allure.Feature;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
@@ -33,13 +35,11 @@ public class Tests extends BaseTest {
      */
     @Feature("Проверка YandexMarket")
     @DisplayName("Проверка работы фильтров в каталоге")
-    @ParameterizedTest(name = "{displayName}")
+    @ParameterizedTest(name = "{displayName} [{index}]: {2} / {3}")
+    @Execution(ExecutionMode.CONCURRENT)
     @MethodSource("com.vilkovandrew.helpers.TestDataProvider#yaMarketProductTest")
     void yaMarketProductTest(String url, String title, String catalogSection, String itemSection, List<Filter> filters) {
-        openSite(url, title, driver);
-        openCatalog();
-        moveCursorToSection(catalogSection);
-        openSectionItem(itemSection);
+        openCatalogSection(url, title, catalogSection, itemSection, driver);
         setFilters(filters);
         numberItemsOnPageMoreThan(12);
         isAllProductsMatchFilters(filters);
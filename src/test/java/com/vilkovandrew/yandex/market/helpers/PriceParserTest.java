@@ -0,0 +1,142 @@
+package com.vilkovandrew.yandex.market.helpers;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Класс содержащий тесты разбора текста цены {@link PriceParser}.
+ * <p>
+ * Тесты не используют браузер и выполняются без {@link com.vilkovandrew.BaseTest}.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class PriceParserTest {
+
+    /**
+     * Разряды цены, разделённые обычным, неразрывным и узкими пробелами.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param text текст цены
+     */
+    @DisplayName("Разбор цены с разделителями разрядов")
+    @ParameterizedTest(name = "{displayName}: {0}")
+    @ValueSource(strings = {"1 234 567 ₽", "1\u00A0234\u00A0567\u00A0₽", "1\u2009234\u2009567 ₽", "1\u202F234\u202F567 ₽"})
+    void parsesGroupSeparators(String text) {
+        PriceParser priceParser = new PriceParser();
+        assertTrue(priceParser.parse(text));
+        assertEquals(1234567, priceParser.getPrice());
+        assertEquals(0, priceParser.getOldPrice());
+        assertEquals(0, priceParser.getDiscount());
+    }
+
+    /**
+     * Цена с префиксом "от".
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    @DisplayName("Разбор цены с префиксом 'от'")
+    @Test
+    void parsesPriceFrom() {
+        PriceParser priceParser = new PriceParser();
+        assertTrue(priceParser.parse("от 1 990 ₽"));
+        assertEquals(1990, priceParser.getPrice());
+    }
+
+    /**
+     * Текущая цена, старая цена и скидка со знаком минус.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    @DisplayName("Разбор старой цены и скидки")
+    @Test
+    void parsesOldPriceAndDiscount() {
+        PriceParser priceParser = new PriceParser();
+        assertTrue(priceParser.parse("9 990 ₽\n12 490 ₽\n-20%"));
+        assertEquals(9990, priceParser.getPrice());
+        assertEquals(12490, priceParser.getOldPrice());
+        assertEquals(20, priceParser.getDiscount());
+    }
+
+    /**
+     * Скидка вычисляется по старой цене, если не указана явно.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    @DisplayName("Вычисление скидки по старой цене")
+    @Test
+    void computesDiscountFromOldPrice() {
+        PriceParser priceParser = new PriceParser();
+        assertTrue(priceParser.parse("9 000 ₽\n10 000 ₽"));
+        assertEquals(10000, priceParser.getOldPrice());
+        assertEquals(10, priceParser.getDiscount());
+    }
+
+    /**
+     * Текст без цены учитывается в счётчике неразобранных.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @param text текст без цены
+     */
+    @DisplayName("Текст без цены")
+    @ParameterizedTest(name = "{displayName}: {0}")
+    @NullAndEmptySource
+    @ValueSource(strings = {"Нет в наличии", "₽ %", "Цена по запросу"})
+    void countsJunkAsUnparseable(String text) {
+        PriceParser priceParser = new PriceParser();
+        assertFalse(priceParser.parse(text));
+        assertEquals(PriceParser.UNPARSEABLE, priceParser.getPrice());
+        assertEquals(0, priceParser.getParsed());
+        assertEquals(1, priceParser.getUnparseable());
+    }
+
+    /**
+     * Число больше {@link Integer#MAX_VALUE} не становится ценой.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    @DisplayName("Переполнение цены")
+    @Test
+    void skipsOverflow() {
+        PriceParser priceParser = new PriceParser();
+        assertFalse(priceParser.parse("99 999 999 999 ₽"));
+        assertEquals(PriceParser.UNPARSEABLE, priceParser.getPrice());
+        assertTrue(priceParser.parse("99999999999 ₽\n1 500 ₽"));
+        assertEquals(1500, priceParser.getPrice());
+    }
+
+    /**
+     * Счётчики разобранных и неразобранных текстов и их сброс.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    @DisplayName("Счётчики разбора")
+    @Test
+    void countsAndResets() {
+        PriceParser priceParser = new PriceParser();
+        Product product = priceParser.toProduct("Товар", "https://market.yandex.ru/product/1", "2 500 ₽");
+        priceParser.parse("нет цены");
+        assertEquals(2500, product.getPrice());
+        assertEquals(1, priceParser.getParsed());
+        assertEquals(1, priceParser.getUnparseable());
+        priceParser.resetCounters();
+        assertEquals(0, priceParser.getParsed());
+        assertEquals(0, priceParser.getUnparseable());
+    }
+}
@@ -0,0 +1,189 @@
+package com.vilkovandrew.yandex.market.pages;
+
+import com.sun.net.httpserver.HttpServer;
+import com.vilkovandrew.helpers.FixtureServer;
+import com.vilkovandrew.yandex.market.helpers.PageSnapshot;
+import com.vilkovandrew.yandex.market.helpers.Product;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Класс содержащий тесты чтения записанных страниц каталога {@link HttpCatalogEngine} через {@link FixtureServer}.
+ * <p>
+ * Тесты не используют браузер и выполняются без {@link com.vilkovandrew.BaseTest}.
+ * </p>
+ *
+ * @author Вилков Андрей
+ */
+public class HttpCatalogEngineTest {
+    /**
+     * Путь страницы результатов в записанных страницах
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static final String LIST_PATH = "/catalog--smartfony/26893750/list?hid=91491";
+
+    /**
+     * Сервер записанных страниц
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    private static FixtureServer server;
+
+    /**
+     * Запуск сервера записанных страниц из ресурсов теста.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @throws URISyntaxException если не удалось получить путь к ресурсам
+     */
+    @BeforeAll
+    static void startServer() throws URISyntaxException {
+        String dir = Paths.get(HttpCatalogEngineTest.class.getResource("/http-catalog-engine").toURI()).toString();
+        server = FixtureServer.start(dir, 0);
+    }
+
+    /**
+     * Остановка сервера записанных страниц.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    @AfterAll
+    static void stopServer() {
+        if (server != null) server.stop();
+    }
+
+    /**
+     * Загрузка всех страниц по пагинации первой страницы, первая страница повторно не загружается.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    @DisplayName("Загрузка страниц результатов по пагинации")
+    @Test
+    void fetchesAllPages() {
+        HttpCatalogEngine engine = new HttpCatalogEngine(server.getUrl() + LIST_PATH);
+        assertEquals(2, engine.getPageCount());
+
+        List<PageSnapshot> pages = engine.fetchPages(engine.getPageCount()).stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList());
+
+        List<Product> first = pages.get(0).getProducts();
+        assertEquals(2, first.size());
+        assertEquals("Смартфон Alpha 128 ГБ", first.get(0).getHeader());
+        assertEquals(server.getUrl() + "/product--smartfon-alpha/101", first.get(0).getLink());
+        assertEquals(12990, first.get(0).getPrice());
+        assertEquals(24490, first.get(1).getPrice());
+        assertEquals(31990, first.get(1).getOldPrice());
+        assertEquals(23, first.get(1).getDiscount());
+        assertEquals(0, pages.get(0).getUnparseablePrices());
+
+        List<Product> second = pages.get(1).getProducts();
+        assertEquals(1, second.size());
+        assertEquals("Смартфон Gamma 64 ГБ", second.get(0).getHeader());
+        assertEquals(1, pages.get(1).getUnparseablePrices());
+        assertTrue(engine.getStatistics().startsWith("Загружено страниц: 2"), engine.getStatistics());
+    }
+
+    /**
+     * Переход на страницу по номеру без браузера.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    @DisplayName("Переход на страницу по номеру")
+    @Test
+    void goesToPage() {
+        HttpCatalogEngine engine = new HttpCatalogEngine(server.getUrl() + LIST_PATH);
+        engine.goToPage(2);
+        assertEquals(server.getUrl() + LIST_PATH + "&page=2", engine.getCurrentUrl());
+        assertEquals("Смартфон Gamma 64 ГБ", engine.getProductOnPage().get(0).getHeader());
+    }
+
+    /**
+     * Страница, которой нет среди записанных, считается ошибкой загрузки.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    @DisplayName("Ошибка загрузки отсутствующей страницы")
+    @Test
+    void failsOnMissingPage() {
+        HttpCatalogEngine engine = new HttpCatalogEngine(server.getUrl() + "/catalog--noutbuki/54544/list");
+        IllegalStateException e = assertThrows(IllegalStateException.class, engine::getSnapshot);
+        assertTrue(e.getMessage().contains("404"), e.getMessage());
+    }
+
+    /**
+     * Страница с номером, которого нет среди записанных, не подменяется записью с тем же путём.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     */
+    @DisplayName("Ошибка загрузки незаписанной страницы результатов")
+    @Test
+    void failsOnUnrecordedPage() {
+        HttpCatalogEngine engine = new HttpCatalogEngine(server.getUrl() + LIST_PATH);
+        engine.goToPage(3);
+        IllegalStateException e = assertThrows(IllegalStateException.class, engine::getSnapshot);
+        assertTrue(e.getMessage().contains("404"), e.getMessage());
+    }
+
+    /**
+     * Перенаправление на другой путь, например на проверку "я не робот", считается ошибкой загрузки.
+     * <p>
+     * Автор: Вилков Андрей
+     * </p>
+     *
+     * @throws IOException если не удалось запустить сервер
+     */
+    @DisplayName("Ошибка загрузки перенаправленной страницы")
+    @Test
+    void failsOnRedirect() throws IOException {
+        HttpServer redirecting = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        redirecting.createContext("/catalog", exchange -> {
+            exchange.getResponseHeaders().set("Location", "/showcaptcha");
+            exchange.sendResponseHeaders(302, -1);
+            exchange.close();
+        });
+        redirecting.createContext("/showcaptcha", exchange -> {
+            byte[] body = "<html><body>captcha</body></html>".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        redirecting.start();
+        try {
+            InetSocketAddress address = redirecting.getAddress();
+            HttpCatalogEngine engine = new HttpCatalogEngine(
+                    String.format("http://%s:%d/catalog/list", address.getHostString(), address.getPort()));
+            IllegalStateException e = assertThrows(IllegalStateException.class, engine::getSnapshot);
+            assertTrue(e.getMessage().contains("/showcaptcha"), e.getMessage());
+        } finally {
+            redirecting.stop(0);
+        }
+    }
+}